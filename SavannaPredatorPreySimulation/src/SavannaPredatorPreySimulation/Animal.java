@@ -2,7 +2,6 @@ package SavannaPredatorPreySimulation;
 
 import java.util.List;
 import java.util.Random;
-import java.util.Iterator;
 
 /**
  * An abstract class representing shared characteristics of animals.
@@ -16,105 +15,79 @@ public abstract class Animal extends Actor
     private SavannaAnimal savanna;
     // The animal's location.
     private Location location;
-    // The animal's age.
-    private int age;
-    // The animal's maximum age.
-    private int maxAge;
-    // The animal's food level, which is increased by eating.
-    private int foodValue;
-    // The animal's maximum food level.
-    private int maxFoodValue;
-    // The age an animal can start breeding at.
-    private int breedingAge;
-    // The maximum number of offspring an animal can have when breeding.
-    private int maxLitterSize;
-    // The probability that 2 animal of the same type breed when the opposite genders meet.
-    private double breedingProbability;
+    // The awake step of its species at which the animal's age was zero.
+    private int bornAt;
+    // The awake step of its species at which the animal starves; eating puts it off.
+    private int starveAt;
     // The gender of the animal
     private boolean isFemale;
-    // The name of the animal.
-    private String name;
-    // Time that the animal falls asleep.
-    private int sleep;
-    // How much time the animal falls asleep for.
-    private int sleepAmount;
-    // When the animal wakes up.
-    private int wake;
-    // A random generator for the animal
-    private static final Random rand = Randomizer.getRandom();
+    // The characteristics shared by the animal's species.
+    private SpeciesTraits traits;
     
     /**
      * Create a new animal at location in savanna.
      * The animal can be created with random age.
+     * Rather than counting its age and food level down every step,
+     * the animal records when it was born and when it will starve,
+     * measured on its species' awake clock in the savanna.
      * 
      * @param randomAge True if the animal borns with a random age.
      * @param savanna The savanna currently occupied.
      * @param location The location within the savanna.
-     * @param maxAge The animal's maximum age.
-     * @param maxFoodValue The animal's maximum food level.
-     * @param breedingAge The age at which the animal can start giving birth.
-     * @param maxLitterSize The maximum number of kids an animal can have when giving birth.
-     * @param breedingProbability The probability that an animal will give birth when meeting an opposite gender.
-     * @param name The name of the species of the animal.
-     * @param sleep The time at when the animal falls asleep.
-     * @param sleepAmount The number of hours the animal sleeps.
+     * @param traits The characteristics shared by the animal's species.
      */
-    public Animal(boolean randomAge, SavannaAnimal savanna, Location location, int maxAge, int maxFoodValue, int breedingAge, int maxLitterSize, double breedingProbability, String name, int sleep, int sleepAmount)
+    public Animal(boolean randomAge, SavannaAnimal savanna, Location location, SpeciesTraits traits)
     {
         super();
         this.savanna = savanna;
-        setLocation(location);
-        this.maxAge = maxAge;
-        this.maxFoodValue = maxFoodValue;
-        this.breedingAge = breedingAge;
-        this.maxLitterSize = maxLitterSize;
-        this.breedingProbability = breedingProbability;
-        this.name = name;
-        this.sleepAmount = sleepAmount;
-        this.sleep = sleep;
-        wake = (sleep + sleepAmount) % 24;
+        this.traits = traits;
         createGender();
+        // The grid records the species and sex, so place the animal last.
+        setLocation(location);
 
+        int now = savanna.getClock(traits.getSpecies().getId());
         if(randomAge) {
-            age = rand.nextInt(maxAge);
-            foodValue = rand.nextInt(maxFoodValue);
+            Random rand = savanna.getRandom();
+            bornAt = now - rand.nextInt(traits.getMaxAge());
+            starveAt = now + rand.nextInt(traits.getMaxFoodValue());
         } else {
-            age = 0;
-            foodValue = maxFoodValue;
+            bornAt = now;
+            starveAt = now + traits.getMaxFoodValue();
         }
     }
     
     /**
      * Make this animal act - that is: make it do
      * whatever it wants/needs to do.
+     * The simulator only asks awake animals to act, and advances
+     * their species' clock first. An animal killed since its last
+     * turn does nothing.
      * @param newAnimals A list to receive newly born animals.
-     * @param isAsleep True if the animal is asleep.
      * @param isDisease True if the animal is sick.
      * @param lethality The lethality of the disease.
      * @param infectionRate The infection rate of the disease.
      */
-    public void act(List<Animal> newAnimals, boolean isAsleep, boolean isDisease, int lethality, double infectionRate)
+    public void act(List<Animal> newAnimals, boolean isDisease, int lethality, double infectionRate)
     {
-        if(!isAsleep) {
-            incrementHunger();
-            incrementAge(isDisease, lethality, infectionRate);
-            if(isAlive()) {
-                if(meet()) {
-                    giveBirth(newAnimals);  
-                }          
-                // Move towards a source of food if found.
-                Location newLocation = findFood();
-                if(newLocation == null) {
-                    // No food found - try to move to a free location.
-                    newLocation = getSavanna().freeAdjacentLocation(getLocation());
-                }
-                // See if it was possible to move.
-                if(newLocation != null) {
-                    setLocation(newLocation);
-                } else {
-                    // Overcrowding.
-                    setDead();
-                }
+        if(isAlive()) {
+            checkLifespan(isDisease, lethality, infectionRate);
+        }
+        if(isAlive()) {
+            if(meet()) {
+                giveBirth(newAnimals);  
+            }          
+            // Move towards a source of food if found.
+            Location newLocation = findFood();
+            if(newLocation == null) {
+                // No food found - try to move to a free location.
+                newLocation = getSavanna().freeAdjacentLocation(getLocation());
+            }
+            // See if it was possible to move.
+            if(newLocation != null) {
+                setLocation(newLocation);
+            } else {
+                // Overcrowding.
+                setDead();
             }
         }
     }
@@ -138,7 +111,7 @@ public abstract class Animal extends Actor
      */
     private void createGender()
     {
-        int random = rand.nextInt(2);
+        int random = savanna.getRandom().nextInt(2);
         if(random == 0) {
             isFemale = true;
         } else {
@@ -152,7 +125,34 @@ public abstract class Animal extends Actor
      */
     protected String getName()
     {
-        return name;
+        return traits.getSpecies().getName();
+    }
+    
+    /**
+     * Return the species of the animal.
+     * @return The species of the animal.
+     */
+    protected Species getSpecies()
+    {
+        return traits.getSpecies();
+    }
+    
+    /**
+     * Return the characteristics shared by the animal's species.
+     * @return The traits of the animal's species.
+     */
+    protected SpeciesTraits getTraits()
+    {
+        return traits;
+    }
+    
+    /**
+     * Return the code stored for this animal in the savanna's grid.
+     * @return The animal's species and sex, packed by Species.codeOf.
+     */
+    protected short getCode()
+    {
+        return traits.getSpecies().codeOf(getIsFemale());
     }
     
     /**
@@ -161,7 +161,7 @@ public abstract class Animal extends Actor
      */
     protected int getMaxFoodValue()
     {
-        return maxFoodValue;
+        return traits.getMaxFoodValue();
     }
     
     /**
@@ -179,7 +179,25 @@ public abstract class Animal extends Actor
      */
     protected void setFoodValue(int n)
     {
-        foodValue = n;
+        starveAt = getClock() + n;
+    }
+    
+    /**
+     * Return the age of the animal.
+     * @return The number of awake steps since the animal's birth, plus any disease ageing.
+     */
+    protected int getAge()
+    {
+        return getClock() - bornAt;
+    }
+    
+    /**
+     * Return the current reading of the species' awake clock.
+     * @return The number of steps the animal's species has been awake for.
+     */
+    private int getClock()
+    {
+        return savanna.getClock(traits.getSpecies().getId());
     }
     
     /**
@@ -188,7 +206,7 @@ public abstract class Animal extends Actor
      */
     protected int getMaxAge()
     {
-        return maxAge;
+        return traits.getMaxAge();
     }
 
     /**
@@ -228,32 +246,24 @@ public abstract class Animal extends Actor
     }
     
     /**
-     * Increase the age.
-     * This could result in the animal's death.
+     * Check the animal's timers against its species' clock.
+     * The animal dies if it has starved or grown too old. An infected
+     * animal ages by the disease's lethality rather than by one step,
+     * which moves its birth step back by the difference.
      * @param isDisease True if the animal is sick.
      * @param lethality The lethality of the disease.
      * @param infectionRate The infection rate of the disease.
      */
-    protected void incrementAge(boolean isDisease, int lethality, double infectionRate)
+    protected void checkLifespan(boolean isDisease, int lethality, double infectionRate)
     {
-        if (isDisease && rand.nextDouble() <= infectionRate) {
-            age = age + lethality;
-        } else {
-            age++;
-        }
-
-        if(age > maxAge) {
+        if(getClock() >= starveAt) {
             setDead();
+            return;
         }
-    }
-    
-    /**
-     * Make this animal more hungry. This could result in the animal's death.
-     */
-    protected void incrementHunger()
-    {
-        foodValue--;
-        if(foodValue <= 0) {
+        if(isDisease && savanna.getRandom().nextDouble() <= infectionRate) {
+            bornAt -= lethality - 1;
+        }
+        if(getAge() > traits.getMaxAge()) {
             setDead();
         }
     }
@@ -274,16 +284,13 @@ public abstract class Animal extends Actor
     protected boolean meet()
     {
         SavannaAnimal savanna = getSavanna();
-        List<Location> adjacent = savanna.adjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
-        while(it.hasNext()) {
-            Location where = it.next();
-            Object object = savanna.getObjectAt(where);
-            if(object instanceof Animal) {
-                Animal animal = (Animal) object;
-                if (animal.getName().equals(name) && !(animal.getIsFemale() == isFemale)) {
-                    return true;
-                }
+        // Same species and opposite sex differ only in the sex bit.
+        int mate = getCode() ^ 1;
+        int[] adjacent = savanna.getScratch();
+        int count = savanna.adjacentIndices(getLocation(), adjacent);
+        for(int i = 0; i < count; i++) {
+            if(savanna.getCodeAt(adjacent[i]) == mate) {
+                return true;
             }
         }
         return false;
@@ -296,9 +303,10 @@ public abstract class Animal extends Actor
      */
     protected int breed()
     {
+        Random rand = savanna.getRandom();
         int births = 0;
-        if(canBreed() && rand.nextDouble() <= breedingProbability) {
-            births = rand.nextInt(maxLitterSize) + 1;
+        if(canBreed() && rand.nextDouble() <= traits.getBreedingProbability()) {
+            births = rand.nextInt(traits.getMaxLitterSize()) + 1;
         }
         return births;
     }
@@ -309,7 +317,7 @@ public abstract class Animal extends Actor
      */
     protected boolean canBreed()
     {
-        return age >= breedingAge;
+        return getAge() >= traits.getBreedingAge();
     }
     
     /**
@@ -318,7 +326,7 @@ public abstract class Animal extends Actor
      */
     public int getSleep()
     {
-        return sleep;
+        return traits.getSleep();
     }
     
     /**
@@ -327,6 +335,6 @@ public abstract class Animal extends Actor
      */
     public int getWake()
     {
-        return wake;
+        return traits.getWake();
     }
 }
\ No newline at end of file
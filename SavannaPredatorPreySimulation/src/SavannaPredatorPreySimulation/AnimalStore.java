@@ -0,0 +1,245 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.Arrays;
+
+/**
+ * The state of every animal of a simulation, kept in parallel
+ * primitive arrays rather than in one object per animal. An animal
+ * is just a slot number: its species id, birth and starvation steps,
+ * sex, cell and whether it is alive are read from the arrays at that
+ * slot. The two steps are read on the species' awake clock, as in
+ * Animal, so nothing needs updating while an animal merely lives on.
+ *
+ * Slots are handed out in the order animals are added. An animal
+ * that dies keeps its slot until it has been removed and compact()
+ * is called, which closes the gaps without changing the order of
+ * the survivors. Dying and removal are kept apart because the list
+ * based simulator only drops an animal when its own turn comes round.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class AnimalStore
+{
+    // The number of slots the store starts with.
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // The species id of each animal.
+    private byte[] species;
+    // The awake step at which each animal's age was zero.
+    private int[] bornAt;
+    // The awake step at which each animal starves.
+    private int[] starveAt;
+    // The sex of each animal.
+    private boolean[] female;
+    // The index of the cell each animal occupies.
+    private int[] cell;
+    // Whether each animal is alive.
+    private boolean[] alive;
+    // Whether each animal is to be dropped by the next compact().
+    private boolean[] removed;
+    // The number of slots in use.
+    private int size;
+
+    /**
+     * Create an empty store.
+     */
+    public AnimalStore()
+    {
+        species = new byte[INITIAL_CAPACITY];
+        bornAt = new int[INITIAL_CAPACITY];
+        starveAt = new int[INITIAL_CAPACITY];
+        female = new boolean[INITIAL_CAPACITY];
+        cell = new int[INITIAL_CAPACITY];
+        alive = new boolean[INITIAL_CAPACITY];
+        removed = new boolean[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Remove every animal.
+     */
+    public void clear()
+    {
+        size = 0;
+    }
+
+    /**
+     * Add a living animal in the next free slot.
+     * @param speciesId The id of the animal's species.
+     * @param isFemale The sex of the animal.
+     * @param born The awake step at which the animal's age was zero.
+     * @param starve The awake step at which the animal starves.
+     * @param index The index of the cell the animal occupies.
+     * @return The slot of the new animal.
+     */
+    public int add(int speciesId, boolean isFemale, int born, int starve, int index)
+    {
+        if(size == species.length) {
+            grow();
+        }
+        int slot = size++;
+        species[slot] = (byte) speciesId;
+        female[slot] = isFemale;
+        bornAt[slot] = born;
+        starveAt[slot] = starve;
+        cell[slot] = index;
+        alive[slot] = true;
+        removed[slot] = false;
+        return slot;
+    }
+
+    /**
+     * Double the capacity of every array.
+     */
+    private void grow()
+    {
+        int capacity = species.length * 2;
+        species = Arrays.copyOf(species, capacity);
+        bornAt = Arrays.copyOf(bornAt, capacity);
+        starveAt = Arrays.copyOf(starveAt, capacity);
+        female = Arrays.copyOf(female, capacity);
+        cell = Arrays.copyOf(cell, capacity);
+        alive = Arrays.copyOf(alive, capacity);
+        removed = Arrays.copyOf(removed, capacity);
+    }
+
+    /**
+     * Close the gaps left by removed animals in a single pass. The
+     * others keep their relative order. The grid's cell to slot table
+     * is updated for every animal that moves down and is still the
+     * one recorded in its cell.
+     * @param slotAt The slot of the animal in each cell of the grid.
+     * @param codes The code of the animal in each cell of the grid.
+     */
+    public void compact(int[] slotAt, short[] codes)
+    {
+        int kept = 0;
+        for(int slot = 0; slot < size; slot++) {
+            if(!removed[slot]) {
+                if(kept != slot) {
+                    species[kept] = species[slot];
+                    female[kept] = female[slot];
+                    bornAt[kept] = bornAt[slot];
+                    starveAt[kept] = starveAt[slot];
+                    cell[kept] = cell[slot];
+                    alive[kept] = alive[slot];
+                    removed[kept] = false;
+                    int index = cell[kept];
+                    if(index >= 0 && slotAt[index] == slot && codes[index] >> 1 == species[kept]) {
+                        slotAt[index] = kept;
+                    }
+                }
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * @return The number of slots in use, including dead animals not yet compacted.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @param slot The slot of an animal.
+     * @return The id of the animal's species.
+     */
+    public int getSpecies(int slot)
+    {
+        return species[slot];
+    }
+
+    /**
+     * @param slot The slot of an animal.
+     * @return The awake step at which the animal's age was zero.
+     */
+    public int getBornAt(int slot)
+    {
+        return bornAt[slot];
+    }
+
+    /**
+     * @param slot The slot of an animal.
+     * @param born The new awake step at which the animal's age was zero.
+     */
+    public void setBornAt(int slot, int born)
+    {
+        bornAt[slot] = born;
+    }
+
+    /**
+     * @param slot The slot of an animal.
+     * @return The awake step at which the animal starves.
+     */
+    public int getStarveAt(int slot)
+    {
+        return starveAt[slot];
+    }
+
+    /**
+     * @param slot The slot of an animal.
+     * @param starve The new awake step at which the animal starves.
+     */
+    public void setStarveAt(int slot, int starve)
+    {
+        starveAt[slot] = starve;
+    }
+
+    /**
+     * @param slot The slot of an animal.
+     * @return true if the animal is female.
+     */
+    public boolean isFemale(int slot)
+    {
+        return female[slot];
+    }
+
+    /**
+     * @param slot The slot of an animal.
+     * @return The index of the cell the animal occupies, or -1 once it has died.
+     */
+    public int getCell(int slot)
+    {
+        return cell[slot];
+    }
+
+    /**
+     * @param slot The slot of an animal.
+     * @param index The index of the cell the animal now occupies.
+     */
+    public void setCell(int slot, int index)
+    {
+        cell[slot] = index;
+    }
+
+    /**
+     * @param slot The slot of an animal.
+     * @return true if the animal is alive.
+     */
+    public boolean isAlive(int slot)
+    {
+        return alive[slot];
+    }
+
+    /**
+     * Mark an animal as dead. Its slot stays in use until removed.
+     * @param slot The slot of the animal.
+     */
+    public void setDead(int slot)
+    {
+        alive[slot] = false;
+    }
+
+    /**
+     * Mark an animal's slot to be reclaimed by the next compact().
+     * @param slot The slot of the animal.
+     */
+    public void remove(int slot)
+    {
+        removed[slot] = true;
+    }
+}
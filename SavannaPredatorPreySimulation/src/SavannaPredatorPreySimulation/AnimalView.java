@@ -0,0 +1,75 @@
+package SavannaPredatorPreySimulation;
+
+/**
+ * A read-only copy of one animal of an ArraySimulator, for the
+ * GUI and for tests. The simulation itself never creates these.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class AnimalView
+{
+    // The copied state of the animal.
+    private final Species species;
+    private final int age;
+    private final int foodValue;
+    private final boolean isFemale;
+    private final Location location;
+
+    /**
+     * Copy the state of an animal.
+     * @param species The species of the animal.
+     * @param age The age of the animal.
+     * @param foodValue The food level of the animal.
+     * @param isFemale The sex of the animal.
+     * @param location The location of the animal.
+     */
+    public AnimalView(Species species, int age, int foodValue, boolean isFemale, Location location)
+    {
+        this.species = species;
+        this.age = age;
+        this.foodValue = foodValue;
+        this.isFemale = isFemale;
+        this.location = location;
+    }
+
+    /**
+     * @return The species of the animal.
+     */
+    public Species getSpecies()
+    {
+        return species;
+    }
+
+    /**
+     * @return The age of the animal.
+     */
+    public int getAge()
+    {
+        return age;
+    }
+
+    /**
+     * @return The food level of the animal.
+     */
+    public int getFoodValue()
+    {
+        return foodValue;
+    }
+
+    /**
+     * @return true if the animal is female.
+     */
+    public boolean isFemale()
+    {
+        return isFemale;
+    }
+
+    /**
+     * @return The location of the animal.
+     */
+    public Location getLocation()
+    {
+        return location;
+    }
+}
@@ -0,0 +1,430 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A predator-prey simulator that keeps its animals in AnimalStores,
+ * one per species, instead of one object per animal. The grid holds
+ * a code and a slot number for each cell, and a step is a plain
+ * indexed loop over each awake species' store, so a large savanna
+ * creates no garbage while it runs.
+ *
+ * The rules are those of Animal, Predator and Prey, applied in the
+ * same order and with the same random numbers, so from the same seed
+ * this simulator produces the same savanna as Simulator. It has no
+ * view of its own; AnimalView gives a read-only copy of an animal.
+ * The codes of the cells and the state shared with the other array
+ * simulators are kept by GridSimulator.
+ *
+ * As in SavannaAnimal, the population of each species is counted
+ * where cells are written and emptied rather than where animals are
+ * born and die, since a grazer moving onto a cell overwrites any
+ * animal there, which lives on off the grid.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class ArraySimulator extends GridSimulator
+{
+    // The slot recorded for a cell with no animal in it.
+    private static final int NO_SLOT = -1;
+
+    // The slot of the animal in each cell, in its species' store, or NO_SLOT.
+    private final int[] slotAt;
+    // The state of every animal, one store per species id.
+    private final AnimalStore[] stores;
+    // Scratch space for the indices of neighbouring cells.
+    private final int[] adjacent;
+
+    /**
+     * Construct a simulation savanna with default size.
+     */
+    public ArraySimulator()
+    {
+        this(Simulator.DEFAULT_DEPTH, Simulator.DEFAULT_WIDTH);
+    }
+
+    /**
+     * Create a simulation savanna with the given size.
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     */
+    public ArraySimulator(int depth, int width)
+    {
+        this(depth, width, Randomizer.getRandom());
+    }
+
+    /**
+     * Create a simulation savanna with the given size, whose savanna,
+     * animals and events all draw from the given generator.
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     * @param rand The random generator for this simulation alone.
+     */
+    public ArraySimulator(int depth, int width, Random rand)
+    {
+        super(depth, width, rand);
+        slotAt = new int[codes.length];
+        stores = new AnimalStore[Species.getIdCount()];
+        for(int id = 1; id < stores.length; id++) {
+            if(traits[id] != null) {
+                stores[id] = new AnimalStore();
+            }
+        }
+        adjacent = new int[Neighbourhood.MAX_NEIGHBOURS];
+
+        // Setup a valid starting point. The superclass' reset is named
+        // so that a subclass' override does not run before the
+        // subclass' own fields are set; subclasses finish the setup
+        // in their own constructors.
+        super.reset();
+    }
+
+    /**
+     * Run the simulation from its current state for a single step.
+     * The species act in order of id, and a species asleep at this
+     * hour is skipped as a whole. Every animal of an awake species
+     * that is in its store when the step begins takes a turn, in slot
+     * order; animals born during the step are added at the end of
+     * their store and first act in the next step.
+     */
+    public void simulateOneStep()
+    {
+        beginStep();
+
+        int hour = time.getHour();
+        for(int id = 1; id < stores.length; id++) {
+            if(traits[id] != null && traits[id].isAwake(hour)) {
+                actSpecies(id);
+            }
+        }
+    }
+
+    /**
+     * Let every animal of one awake species take its turn, then
+     * drop the dead ones from its store.
+     * @param id The id of the species.
+     */
+    protected void actSpecies(int id)
+    {
+        AnimalStore store = stores[id];
+        boolean isDisease = events.isDisease();
+        int lethality = events.getLethality();
+        double infectionRate = events.getInfectionRate();
+        int now = ++clocks[id];
+        // Only this species gives birth to its own kind, so newborns
+        // added during the loop are past the count taken here.
+        int count = store.size();
+        for(int slot = 0; slot < count; slot++) {
+            act(store, slot, now, isDisease, lethality, infectionRate);
+            if(!store.isAlive(slot)) {
+                store.remove(slot);
+            }
+        }
+        store.compact(slotAt, codes);
+    }
+
+    /**
+     * Return whether a species has any animals in its store, living
+     * or waiting to be removed.
+     * @param id The id of the species.
+     * @return true if the species' store is not empty.
+     */
+    protected boolean hasAnimals(int id)
+    {
+        return stores[id] != null && stores[id].size() > 0;
+    }
+
+    /**
+     * Let one awake animal take its turn, as Animal.act does.
+     * @param store The store of the animal's species.
+     * @param slot The slot of the animal.
+     * @param now The species' awake clock.
+     * @param isDisease True if a disease is under way.
+     * @param lethality The lethality of the disease.
+     * @param infectionRate The infection rate of the disease.
+     */
+    private void act(AnimalStore store, int slot, int now, boolean isDisease, int lethality, double infectionRate)
+    {
+        if(!store.isAlive(slot)) {
+            return;
+        }
+        SpeciesTraits t = traits[store.getSpecies(slot)];
+        if(now >= store.getStarveAt(slot)) {
+            setDead(store, slot);
+            return;
+        }
+        if(isDisease && rand.nextDouble() <= infectionRate) {
+            store.setBornAt(slot, store.getBornAt(slot) - (lethality - 1));
+        }
+        if(now - store.getBornAt(slot) > t.getMaxAge()) {
+            setDead(store, slot);
+            return;
+        }
+
+        int cell = store.getCell(slot);
+        if(meet(store, slot, cell)) {
+            giveBirth(store, slot, cell, now, t);
+        }
+        // Move towards a source of food if found.
+        int target = t.getDiet() != 0 ? hunt(store, slot, cell, now, t) : graze(store, slot, cell, now, t);
+        if(target == NO_SLOT) {
+            // No food found - try to move to a free location.
+            if(freeAdjacentIndices(cell) > 0) {
+                target = adjacent[0];
+            }
+        }
+        // See if it was possible to move.
+        if(target != NO_SLOT) {
+            moveTo(store, slot, target);
+        } else {
+            // Overcrowding.
+            setDead(store, slot);
+        }
+    }
+
+    /**
+     * Return whether an animal of the same species and opposite sex
+     * is in a cell next to the animal.
+     * @param store The store of the animal's species.
+     * @param slot The slot of the animal.
+     * @param cell The cell the animal occupies.
+     * @return true if a mate was found.
+     */
+    private boolean meet(AnimalStore store, int slot, int cell)
+    {
+        int mate = codeOf(store, slot) ^ 1;
+        int count = neighbourhood.shuffledNeighbours(cell / width, cell % width, adjacent, rand);
+        for(int i = 0; i < count; i++) {
+            if(codes[adjacent[i]] == mate) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Give birth to newborns in the free cells around the animal.
+     * @param store The store of the parent's species.
+     * @param slot The slot of the parent.
+     * @param cell The cell the parent occupies.
+     * @param now The species' awake clock.
+     * @param t The traits of the parent's species.
+     */
+    private void giveBirth(AnimalStore store, int slot, int cell, int now, SpeciesTraits t)
+    {
+        int free = freeAdjacentIndices(cell);
+        int births = 0;
+        if(now - store.getBornAt(slot) >= t.getBreedingAge() && rand.nextDouble() <= t.getBreedingProbability()) {
+            births = rand.nextInt(t.getMaxLitterSize()) + 1;
+        }
+        int id = t.getSpecies().getId();
+        for(int b = 0; b < births && b < free; b++) {
+            addAnimal(id, adjacent[b], rand.nextInt(2) == 0, now, now + t.getMaxFoodValue());
+        }
+    }
+
+    /**
+     * Look for prey next to a predator. Only the first live prey is eaten.
+     * @param store The store of the predator's species.
+     * @param slot The slot of the predator.
+     * @param cell The cell the predator occupies.
+     * @param now The species' awake clock.
+     * @param t The traits of the predator's species.
+     * @return The cell of the prey eaten, or NO_SLOT if none was found.
+     */
+    private int hunt(AnimalStore store, int slot, int cell, int now, SpeciesTraits t)
+    {
+        int diet = t.getDiet();
+        int count = neighbourhood.shuffledNeighbours(cell / width, cell % width, adjacent, rand);
+        for(int i = 0; i < count; i++) {
+            int where = adjacent[i];
+            if(Species.inDiet(diet, codes[where])) {
+                setDead(stores[codes[where] >> 1], slotAt[where]);
+                store.setStarveAt(slot, now + t.getMaxFoodValue());
+                return where;
+            }
+        }
+        return NO_SLOT;
+    }
+
+    /**
+     * Look for live grass next to a grazer. Only the first is eaten.
+     * @param store The store of the grazer's species.
+     * @param slot The slot of the grazer.
+     * @param cell The cell the grazer occupies.
+     * @param now The species' awake clock.
+     * @param t The traits of the grazer's species.
+     * @return The cell of the grass eaten, or NO_SLOT if none was found.
+     */
+    private int graze(AnimalStore store, int slot, int cell, int now, SpeciesTraits t)
+    {
+        int count = neighbourhood.shuffledNeighbours(cell / width, cell % width, adjacent, rand);
+        for(int i = 0; i < count; i++) {
+            int where = adjacent[i];
+            if(savannaPlant.isAlive(where)) {
+                savannaPlant.clear(where);
+                store.setStarveAt(slot, now + t.getMaxFoodValue());
+                return where;
+            }
+        }
+        return NO_SLOT;
+    }
+
+    /**
+     * Write the free cells next to a cell into the scratch buffer,
+     * in a random order.
+     * @param cell The cell whose neighbours are searched.
+     * @return The number of free cells found.
+     */
+    private int freeAdjacentIndices(int cell)
+    {
+        int count = neighbourhood.shuffledNeighbours(cell / width, cell % width, adjacent, rand);
+        int free = 0;
+        for(int i = 0; i < count; i++) {
+            if(codes[adjacent[i]] == FlatGrid.EMPTY) {
+                adjacent[free++] = adjacent[i];
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Add a living animal to the store and the grid, and count it.
+     * @param id The id of the animal's species.
+     * @param cell The cell the animal occupies.
+     * @param isFemale Whether the animal is female.
+     * @param born The awake step at which the animal's age was zero.
+     * @param starve The awake step at which the animal starves.
+     */
+    private void addAnimal(int id, int cell, boolean isFemale, int born, int starve)
+    {
+        int slot = stores[id].add(id, isFemale, born, starve, cell);
+        setCell(cell, Species.byId(id).codeOf(isFemale), slot);
+    }
+
+    /**
+     * Move an animal to another cell, as Animal.setLocation does.
+     * Any animal in that cell is overwritten and no longer counted.
+     * @param store The store of the animal's species.
+     * @param slot The slot of the animal.
+     * @param target The cell to move to.
+     */
+    private void moveTo(AnimalStore store, int slot, int target)
+    {
+        clearCell(store.getCell(slot));
+        store.setCell(slot, target);
+        setCell(target, codeOf(store, slot), slot);
+    }
+
+    /**
+     * Mark an animal as dead and empty the cell it was placed in.
+     * @param store The store of the animal's species.
+     * @param slot The slot of the animal.
+     */
+    private void setDead(AnimalStore store, int slot)
+    {
+        store.setDead(slot);
+        int cell = store.getCell(slot);
+        if(cell >= 0) {
+            clearCell(cell);
+            store.setCell(slot, -1);
+        }
+    }
+
+    /**
+     * Put an animal in a cell of the grid, overwriting any other, and
+     * count it in place of the one overwritten.
+     * @param cell The cell written.
+     * @param code The grid code of the animal.
+     * @param slot The slot of the animal in its species' store.
+     */
+    private void setCell(int cell, short code, int slot)
+    {
+        uncount(cell);
+        codes[cell] = code;
+        slotAt[cell] = slot;
+        population[code >> 1]++;
+    }
+
+    /**
+     * Empty a cell of the grid, no longer counting any animal in it.
+     * @param cell The cell to empty.
+     */
+    private void clearCell(int cell)
+    {
+        uncount(cell);
+        codes[cell] = FlatGrid.EMPTY;
+        slotAt[cell] = NO_SLOT;
+    }
+
+    /**
+     * Stop counting the animal in a cell, if there is one, before the
+     * cell is written or emptied.
+     * @param cell The cell.
+     */
+    private void uncount(int cell)
+    {
+        if(codes[cell] != FlatGrid.EMPTY) {
+            population[codes[cell] >> 1]--;
+        }
+    }
+
+    /**
+     * Return the grid code of an animal.
+     * @param store The store of the animal's species.
+     * @param slot The slot of the animal.
+     * @return The animal's species and sex, packed by Species.codeOf.
+     */
+    private short codeOf(AnimalStore store, int slot)
+    {
+        return (short) (store.getSpecies(slot) << 1 | (store.isFemale(slot) ? 1 : 0));
+    }
+
+    /**
+     * Empty every store and the slots of the grid.
+     */
+    protected void clearAnimals()
+    {
+        for(AnimalStore store : stores) {
+            if(store != null) {
+                store.clear();
+            }
+        }
+        Arrays.fill(slotAt, NO_SLOT);
+    }
+
+    /**
+     * Add an animal of the starting population to its store, and
+     * count it.
+     * @param id The id of the animal's species.
+     * @param cell The cell the animal occupies.
+     * @param isFemale Whether the animal is female.
+     * @param starveAt The awake step at which the animal starves.
+     */
+    protected void addStartingAnimal(int id, int cell, boolean isFemale, int starveAt)
+    {
+        addAnimal(id, cell, isFemale, 0, starveAt);
+    }
+
+    /**
+     * Return a read-only copy of the animal in a cell.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return A view of the animal, or null if the cell is empty.
+     */
+    public AnimalView getAnimalAt(int row, int col)
+    {
+        int cell = row * width + col;
+        int slot = slotAt[cell];
+        if(slot == NO_SLOT) {
+            return null;
+        }
+        int id = codes[cell] >> 1;
+        AnimalStore store = stores[id];
+        int age = clocks[id] - store.getBornAt(slot);
+        int food = store.getStarveAt(slot) - clocks[id];
+        return new AnimalView(Species.byId(id), age, food, store.isFemale(slot), new Location(row, col));
+    }
+}
@@ -19,12 +19,14 @@ public class Buffalo extends Prey
     private static final double BREEDING_PROBABILITY = 0.2;
     // The maximum number of births.
     private static final int MAX_LITTER_SIZE = 3;
-    // Name of the animal in a String.
-    private static final String NAME = "Buffalo";
+    // The species of the animal.
+    private static final Species SPECIES = Species.BUFFALO;
     // When the animal falls asleep.
     private static final int SLEEP = 10;
     // How much the animal sleeps.
     private static final int SLEEP_AMOUNT = 4;
+    // The characteristics above, shared by every buffalo.
+    static final SpeciesTraits TRAITS = new SpeciesTraits(SPECIES, MAX_AGE, MAX_FOOD_VALUE, BREEDING_AGE, MAX_LITTER_SIZE, BREEDING_PROBABILITY, SLEEP, SLEEP_AMOUNT);
 
     /**
      * Create a new buffalo. A buffalo may be created with age
@@ -36,7 +38,7 @@ public class Buffalo extends Prey
      */
     public Buffalo(boolean randomAge, SavannaAnimal savanna, Location location, SavannaPlant savannaPlant)
     {
-        super(randomAge, savanna, location, MAX_AGE, MAX_FOOD_VALUE, BREEDING_AGE, MAX_LITTER_SIZE, BREEDING_PROBABILITY, NAME, SLEEP, SLEEP_AMOUNT, savannaPlant);
+        super(randomAge, savanna, location, TRAITS, savannaPlant);
     }
     
     /**
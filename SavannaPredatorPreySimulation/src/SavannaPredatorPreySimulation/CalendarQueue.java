@@ -0,0 +1,117 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.Arrays;
+
+/**
+ * A calendar queue of events keyed by simulation step. The queue has
+ * one bucket for each day of a "year"; an event for step t goes into
+ * bucket t modulo the year length, so scheduling and finding the
+ * events of a step both take constant time. Events further ahead
+ * than a year share a bucket with nearer ones and simply wait there
+ * until their own step comes round.
+ *
+ * An event is an int whose meaning is up to the caller. Events of the
+ * same step are returned in the order they were scheduled.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class CalendarQueue
+{
+    // The initial capacity of each bucket.
+    private static final int INITIAL_BUCKET_SIZE = 4;
+
+    // The number of buckets less one; the bucket count is a power of two.
+    private final int mask;
+    // The events in each bucket.
+    private final int[][] events;
+    // The step of each event in each bucket.
+    private final int[][] steps;
+    // The number of events in each bucket.
+    private final int[] counts;
+    // The number of events in the queue.
+    private int size;
+
+    /**
+     * Create an empty queue.
+     * @param yearLength The number of steps most events are scheduled
+     *                   ahead by; rounded up to a power of two.
+     */
+    public CalendarQueue(int yearLength)
+    {
+        int buckets = Integer.highestOneBit(Math.max(1, yearLength - 1)) << 1;
+        mask = buckets - 1;
+        events = new int[buckets][INITIAL_BUCKET_SIZE];
+        steps = new int[buckets][INITIAL_BUCKET_SIZE];
+        counts = new int[buckets];
+        size = 0;
+    }
+
+    /**
+     * Remove every event.
+     */
+    public void clear()
+    {
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    /**
+     * Schedule an event.
+     * @param step The step at which the event happens.
+     * @param event The event.
+     */
+    public void schedule(int step, int event)
+    {
+        int bucket = step & mask;
+        int count = counts[bucket];
+        if(count == events[bucket].length) {
+            events[bucket] = Arrays.copyOf(events[bucket], count * 2);
+            steps[bucket] = Arrays.copyOf(steps[bucket], count * 2);
+        }
+        events[bucket][count] = event;
+        steps[bucket][count] = step;
+        counts[bucket] = count + 1;
+        size++;
+    }
+
+    /**
+     * Take the events of a step out of the queue.
+     * @param step The step whose events are wanted.
+     * @param out Receives the events, in the order they were scheduled.
+     * @return The number of events written.
+     * @throws IllegalArgumentException If out cannot hold every event of the step.
+     */
+    public int drain(int step, int[] out)
+    {
+        int bucket = step & mask;
+        int[] bucketEvents = events[bucket];
+        int[] bucketSteps = steps[bucket];
+        int count = counts[bucket];
+        int found = 0;
+        int kept = 0;
+        for(int i = 0; i < count; i++) {
+            if(bucketSteps[i] == step) {
+                if(found == out.length) {
+                    throw new IllegalArgumentException("Too many events at step " + step);
+                }
+                out[found++] = bucketEvents[i];
+            } else {
+                bucketEvents[kept] = bucketEvents[i];
+                bucketSteps[kept] = bucketSteps[i];
+                kept++;
+            }
+        }
+        counts[bucket] = kept;
+        size -= found;
+        return found;
+    }
+
+    /**
+     * @return The number of events in the queue.
+     */
+    public int size()
+    {
+        return size;
+    }
+}
@@ -19,14 +19,16 @@ public class Cheetah extends Predator
     private static final double BREEDING_PROBABILITY = 0.15;
     // The maximum number of births.
     private static final int MAX_LITTER_SIZE = 3;
-    // Name of the animal in a String.
-    private static final String NAME = "Cheetah";
+    // The species of the animal.
+    private static final Species SPECIES = Species.CHEETAH;
     // When the animal falls asleep.
     private static final int SLEEP = 17;
     // How much the animal sleeps.
     private static final int SLEEP_AMOUNT = 14;
     // Preys that cheetahs eat.
-    private static final String[] preys = {"Gazelle", "Antelope"};
+    private static final int DIET = Species.maskOf(Species.GAZELLE, Species.ANTELOPE);
+    // The characteristics above, shared by every cheetah.
+    static final SpeciesTraits TRAITS = new SpeciesTraits(SPECIES, MAX_AGE, MAX_FOOD_VALUE, BREEDING_AGE, MAX_LITTER_SIZE, BREEDING_PROBABILITY, SLEEP, SLEEP_AMOUNT, DIET);
     
     /**
      * Create a cheetah. A cheetah can be created as a new born (age zero
@@ -37,7 +39,7 @@ public class Cheetah extends Predator
      */
     public Cheetah(boolean randomAge, SavannaAnimal savanna, Location location)
     {
-        super(randomAge, savanna, location, MAX_AGE, MAX_FOOD_VALUE, BREEDING_AGE, MAX_LITTER_SIZE, BREEDING_PROBABILITY, NAME, SLEEP, SLEEP_AMOUNT, preys);
+        super(randomAge, savanna, location, TRAITS);
     }
     
     /**
@@ -0,0 +1,95 @@
+package SavannaPredatorPreySimulation;
+
+/**
+ * A counter-based random generator. Every number it gives is a pure
+ * function of the run's seed, the step, the entity drawing it (an
+ * animal's cell, a tile, a claim), the purpose of the draw and how
+ * many numbers that entity has already drawn for that purpose. No
+ * state is shared between entities, so draws can be made on any
+ * thread and in any order and still give the same numbers; a
+ * parallel run is then bit-identical whatever the thread count.
+ *
+ * A generator is pointed at a stream with select() and then used
+ * like any Random. The numbers come from SplitMix64: the stream's key
+ * is the seed, step, entity and purpose mixed together, and the n-th
+ * number is the key plus n times the golden gamma, mixed again.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class CounterRandom extends SplitMixRandom
+{
+    // The version of the serialized form, which Random requires.
+    private static final long serialVersionUID = 1L;
+
+    // The purposes an animal draws numbers for in a step.
+    public static final int DISEASE = 1;
+    public static final int MEET = 2;
+    public static final int BIRTH = 3;
+    public static final int FOOD = 4;
+    public static final int MOVE = 5;
+    // The purpose of the ranks used to settle clashes.
+    public static final int RANK = 6;
+
+    // The amount the state moves on by for each number drawn.
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // The seed of the run.
+    private final long seed;
+
+    /**
+     * Create a generator for a run.
+     * @param seed The seed of the run.
+     */
+    public CounterRandom(long seed)
+    {
+        super(seed);
+        this.seed = seed;
+    }
+
+    /**
+     * Point the generator at the start of a stream.
+     * @param step The step of the simulation.
+     * @param entity The entity drawing, such as a cell.
+     * @param purpose What the numbers are for.
+     */
+    public void select(int step, long entity, int purpose)
+    {
+        setState(streamKey(seed, step, entity, purpose));
+    }
+
+    /**
+     * Return one number of a stream without making a generator.
+     * @param seed The seed of the run.
+     * @param step The step of the simulation.
+     * @param entity The entity drawing, such as a cell.
+     * @param purpose What the number is for.
+     * @param counter The position of the number in its stream, from 0.
+     * @return The same 64 bits nextLong() gives after select() and counter earlier draws.
+     */
+    public static long draw(long seed, int step, long entity, int purpose, long counter)
+    {
+        return mix(streamKey(seed, step, entity, purpose) + (counter + 1) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Mix the parts of a stream's name into its key.
+     * @param seed The seed of the run.
+     * @param step The step of the simulation.
+     * @param entity The entity drawing.
+     * @param purpose What the numbers are for.
+     * @return The key of the stream.
+     */
+    private static long streamKey(long seed, int step, long entity, int purpose)
+    {
+        return mix(key(seed, step, entity) + purpose * GOLDEN_GAMMA);
+    }
+
+    /**
+     * @return The seed of the run.
+     */
+    public long getSeed()
+    {
+        return seed;
+    }
+}
@@ -0,0 +1,127 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.Arrays;
+
+/**
+ * The number of cells holding each species, counted over square
+ * blocks of the savanna at several sizes. Level L counts blocks of
+ * 2^L by 2^L cells, from BASE_LEVEL up to the level at which one block
+ * covers the whole savanna. A view that is zoomed out far enough to
+ * show a whole block in one pixel can colour it from the counts,
+ * rather than visit every cell of the block.
+ *
+ * Empty cells are counted as species id 0. The counts are kept up to
+ * date one cell at a time as cells change, each change touching one
+ * block per level.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class DensityMipmap
+{
+    // The smallest blocks counted are 2^BASE_LEVEL cells across; smaller ones
+    // are cheap enough to count from the cells when needed.
+    public static final int BASE_LEVEL = 3;
+
+    // The depth and width of the savanna.
+    private final int depth, width;
+    // The number of species ids counted, including 0 for empty cells.
+    private final int ids;
+    // The number of blocks across each level, indexed by level.
+    private final int[] blocksWide;
+    // The counts of each level, indexed by level, then block, then species id.
+    private final int[][] counts;
+
+    /**
+     * Create the counts for an empty savanna.
+     * @param depth The depth of the savanna.
+     * @param width The width of the savanna.
+     * @param ids The number of species ids, including 0 for empty cells.
+     */
+    public DensityMipmap(int depth, int width, int ids)
+    {
+        this.depth = depth;
+        this.width = width;
+        this.ids = ids;
+        int top = BASE_LEVEL;
+        while((depth - 1) >> top > 0 || (width - 1) >> top > 0) {
+            top++;
+        }
+        blocksWide = new int[top + 1];
+        counts = new int[top + 1][];
+        for(int level = BASE_LEVEL; level <= top; level++) {
+            blocksWide[level] = ((width - 1) >> level) + 1;
+            int blocksDeep = ((depth - 1) >> level) + 1;
+            counts[level] = new int[blocksWide[level] * blocksDeep * ids];
+        }
+    }
+
+    /**
+     * Count every cell again.
+     * @param shown The species id in each cell, row by row.
+     */
+    public void rebuild(byte[] shown)
+    {
+        for(int level = BASE_LEVEL; level < counts.length; level++) {
+            Arrays.fill(counts[level], 0);
+        }
+        int[] base = counts[BASE_LEVEL];
+        for(int row = 0; row < depth; row++) {
+            int blockRow = (row >> BASE_LEVEL) * blocksWide[BASE_LEVEL];
+            for(int col = 0; col < width; col++) {
+                base[(blockRow + (col >> BASE_LEVEL)) * ids + shown[row * width + col]]++;
+            }
+        }
+        // Each block above the base is the sum of the four below it.
+        for(int level = BASE_LEVEL + 1; level < counts.length; level++) {
+            int[] below = counts[level - 1];
+            int belowWide = blocksWide[level - 1];
+            int belowBlocks = below.length / ids;
+            for(int block = 0; block < belowBlocks; block++) {
+                int row = block / belowWide;
+                int col = block - row * belowWide;
+                int into = ((row >> 1) * blocksWide[level] + (col >> 1)) * ids;
+                for(int id = 0; id < ids; id++) {
+                    counts[level][into + id] += below[block * ids + id];
+                }
+            }
+        }
+    }
+
+    /**
+     * Move one cell's count from one species to another.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @param from The species id the cell held.
+     * @param to The species id the cell holds now.
+     */
+    public void change(int row, int col, int from, int to)
+    {
+        for(int level = BASE_LEVEL; level < counts.length; level++) {
+            int block = ((row >> level) * blocksWide[level] + (col >> level)) * ids;
+            counts[level][block + from]--;
+            counts[level][block + to]++;
+        }
+    }
+
+    /**
+     * Copy the counts of one block.
+     * @param level The level of the block, at least BASE_LEVEL.
+     * @param row The row of any cell in the block.
+     * @param col The column of any cell in the block.
+     * @param into The array to copy into, indexed by species id.
+     */
+    public void getCounts(int level, int row, int col, int[] into)
+    {
+        int block = ((row >> level) * blocksWide[level] + (col >> level)) * ids;
+        System.arraycopy(counts[level], block, into, 0, ids);
+    }
+
+    /**
+     * @return The highest level, at which one block covers the whole savanna.
+     */
+    public int getTopLevel()
+    {
+        return counts.length - 1;
+    }
+}
@@ -0,0 +1,239 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Run many independent simulations at once, for studies over many
+ * seeds and parameter variations. Each run is a headless simulation
+ * with its own savanna and its own random generator, seeded from the
+ * ensemble's seed and the run's number, so a run gives the same
+ * result whichever thread it lands on and however many runs there
+ * are. The runs share a fixed pool of threads.
+ *
+ * A RunFactory builds each run's simulation from its number and
+ * generator, so runs can differ in size or in any other setting the
+ * factory chooses. By default every run is a Simulator of one size.
+ *
+ * The population of every species is recorded after every step of
+ * every run, and the steps taken by all runs together are timed.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class EnsembleRunner
+{
+    /**
+     * Builds the simulation for one run of an ensemble. It is called
+     * on the pool's threads, one call per run. For a run to repeat
+     * itself, the simulation must draw all its random numbers from
+     * the generator it is given, so it must be built with that
+     * generator: Simulator and each GridSimulator have a constructor
+     * that takes one. A parallel simulator should also be given a
+     * pool shared by the runs, since the ensemble does not close it.
+     */
+    public interface RunFactory
+    {
+        /**
+         * Create the simulation for a run.
+         * @param run The number of the run.
+         * @param rand The run's own random generator.
+         * @return The simulation, at its starting position.
+         */
+        SimulationEngine create(int run, Random rand);
+    }
+
+    // Builds each run's simulation.
+    private final RunFactory factory;
+    // The most steps each run is given; a run stops early once it is no longer viable.
+    private final int steps;
+    // The seed every run's seed is derived from.
+    private final long seed;
+    // The number of threads the runs share.
+    private final int threads;
+    // The population of each species after each step of each run,
+    // indexed by run, step and species id.
+    private int[][][] trajectories;
+    // The time taken by the last ensemble, in nanoseconds.
+    private long elapsed;
+
+    /**
+     * Create a runner for simulations of the given size, using a
+     * thread for each processor.
+     * @param depth Depth of each savanna. Must be greater than zero.
+     * @param width Width of each savanna. Must be greater than zero.
+     * @param steps The most steps each run is given. Must not be negative.
+     * @param seed The seed the runs' seeds are derived from.
+     */
+    public EnsembleRunner(int depth, int width, int steps, long seed)
+    {
+        this(depth, width, steps, seed, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a runner for simulations of the given size.
+     * @param depth Depth of each savanna. Must be greater than zero.
+     * @param width Width of each savanna. Must be greater than zero.
+     * @param steps The most steps each run is given. Must not be negative.
+     * @param seed The seed the runs' seeds are derived from.
+     * @param threads The number of threads to run on. Must be greater than zero.
+     */
+    public EnsembleRunner(int depth, int width, int steps, long seed, int threads)
+    {
+        this((run, rand) -> new Simulator(depth, width, rand), steps, seed, threads);
+    }
+
+    /**
+     * Create a runner whose runs are built by a factory, which may
+     * vary the size or settings of each run.
+     * @param factory Builds the simulation of each run.
+     * @param steps The most steps each run is given. Must not be negative.
+     * @param seed The seed the runs' seeds are derived from.
+     * @param threads The number of threads to run on. Must be greater than zero.
+     */
+    public EnsembleRunner(RunFactory factory, int steps, long seed, int threads)
+    {
+        if(steps < 0) {
+            throw new IllegalArgumentException("steps must not be negative: " + steps);
+        }
+        if(threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.factory = factory;
+        this.steps = steps;
+        this.seed = seed;
+        this.threads = threads;
+        trajectories = new int[0][][];
+    }
+
+    /**
+     * Run an ensemble of simulations and wait for them all to finish.
+     * The results of any earlier ensemble are replaced.
+     * @param runs The number of simulations to run.
+     */
+    public void run(int runs)
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<int[][]>> tasks = new ArrayList<>();
+            for(int run = 0; run < runs; run++) {
+                final int number = run;
+                tasks.add(() -> runOne(number));
+            }
+            long start = System.nanoTime();
+            List<Future<int[][]>> results = pool.invokeAll(tasks);
+            trajectories = new int[runs][][];
+            for(int run = 0; run < runs; run++) {
+                trajectories[run] = results.get(run).get();
+            }
+            elapsed = System.nanoTime() - start;
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The ensemble was interrupted.", e);
+        }
+        catch(ExecutionException e) {
+            throw new IllegalStateException("A run of the ensemble failed.", e.getCause());
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Run one simulation until it runs out of steps or stops being
+     * viable, recording its populations as it goes.
+     * @param run The number of the run.
+     * @return The population of each species after each step, the
+     *         starting position first.
+     */
+    private int[][] runOne(int run)
+    {
+        Random rand = Randomizer.getGenerator().create(getSeed(run));
+        SimulationEngine simulator = factory.create(run, rand);
+        int[][] trajectory = new int[steps + 1][];
+        trajectory[0] = countPopulations(simulator);
+        int taken = 0;
+        while(taken < steps && simulator.isViable()) {
+            simulator.simulateOneStep();
+            taken++;
+            trajectory[taken] = countPopulations(simulator);
+        }
+        return Arrays.copyOf(trajectory, taken + 1);
+    }
+
+    /**
+     * Count the animals of every species in a simulation.
+     * @param simulator The simulation counted.
+     * @return The number of animals of each species, indexed by id.
+     */
+    private static int[] countPopulations(SimulationEngine simulator)
+    {
+        int[] counts = new int[Species.getIdCount()];
+        for(int id = 1; id < counts.length; id++) {
+            Species species = Species.byId(id);
+            if(species != null) {
+                counts[id] = simulator.getPopulation(species);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Return the seed of a run, a pure function of the ensemble's
+     * seed and the run's number.
+     * @param run The number of the run.
+     * @return The seed of the run's random generator.
+     */
+    public long getSeed(int run)
+    {
+        return SplitMixRandom.key(seed, run, 0);
+    }
+
+    /**
+     * @return The number of runs in the last ensemble.
+     */
+    public int getRunCount()
+    {
+        return trajectories.length;
+    }
+
+    /**
+     * Return the populations recorded by a run of the last ensemble.
+     * @param run The number of the run.
+     * @return The population of each species, indexed by id, after
+     *         each step, the starting position first.
+     */
+    public int[][] getTrajectory(int run)
+    {
+        return trajectories[run];
+    }
+
+    /**
+     * @return The number of steps taken by all runs of the last ensemble together.
+     */
+    public long getTotalSteps()
+    {
+        long total = 0;
+        for(int[][] trajectory : trajectories) {
+            total += trajectory.length - 1;
+        }
+        return total;
+    }
+
+    /**
+     * @return The steps taken per second by all runs of the last
+     *         ensemble together, over the whole pool.
+     */
+    public double getStepsPerSecond()
+    {
+        return elapsed == 0 ? 0 : getTotalSteps() * 1e9 / elapsed;
+    }
+}
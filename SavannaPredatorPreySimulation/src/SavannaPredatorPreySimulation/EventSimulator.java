@@ -0,0 +1,184 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.Random;
+
+/**
+ * A discrete-event version of ArraySimulator. Rather than asking
+ * every step whether the weather or disease should change and which
+ * species are asleep, the simulator keeps those changes in a calendar
+ * queue and only does work at the steps where something happens:
+ * weather and disease checks, the end of a weather or disease spell,
+ * and each species waking up or falling asleep. A step then visits
+ * only the species that are awake and still have animals.
+ *
+ * Animals of an awake species all act every step, since each one at
+ * least tries to move, so they are woken a species at a time. Deaths
+ * from age and hunger are already fixed steps on the animals' timers
+ * and are checked on their turns. Grass regrowth keeps its own queue
+ * in SavannaPlant, ordered on a clock that runs at the weather's pace.
+ * From the same seed this simulator gives the same savanna as
+ * ArraySimulator.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class EventSimulator extends ArraySimulator
+{
+    // The kinds of event, kept above the species id in an event code.
+    private static final int WEATHER_CHECK = 1;
+    private static final int WEATHER_END = 2;
+    private static final int DISEASE_CHECK = 3;
+    private static final int DISEASE_END = 4;
+    private static final int WAKE = 5;
+    private static final int SLEEP = 6;
+    // The number of bits given to the species id in an event code.
+    private static final int KIND_SHIFT = 8;
+
+    // The scheduled events.
+    private final CalendarQueue calendar = new CalendarQueue(Time.STEP_PER_DAY);
+    // The events of the current step: at most one check and one end
+    // for each of weather and disease, and one change for each species.
+    private final int[] due = new int[4 + traits.length];
+
+    /**
+     * Construct a simulation savanna with default size.
+     */
+    public EventSimulator()
+    {
+        this(Simulator.DEFAULT_DEPTH, Simulator.DEFAULT_WIDTH);
+    }
+
+    /**
+     * Create a simulation savanna with the given size.
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     */
+    public EventSimulator(int depth, int width)
+    {
+        super(depth, width);
+        scheduleFirstEvents();
+    }
+
+    /**
+     * Create a simulation savanna with the given size, whose savanna,
+     * animals and events all draw from the given generator.
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     * @param rand The random generator for this simulation alone.
+     */
+    public EventSimulator(int depth, int width, Random rand)
+    {
+        super(depth, width, rand);
+        scheduleFirstEvents();
+    }
+
+    /**
+     * Run the simulation from its current state for a single step.
+     * Carry out the events due at this step, then let the awake
+     * species act in order of id.
+     */
+    public void simulateOneStep()
+    {
+        step++;
+        time.calculateTime(step);
+
+        handleEvents();
+        savannaPlant.grow(events.getGrowthChange());
+
+        for(int id = 1; id < awake.length; id++) {
+            if(awake[id] && hasAnimals(id)) {
+                actSpecies(id);
+            }
+        }
+    }
+
+    /**
+     * Carry out the events due at the current step. Weather is dealt
+     * with before disease, as SavannaEvents.update does, so both
+     * draw the same random numbers.
+     */
+    private void handleEvents()
+    {
+        int count = calendar.drain(step, due);
+        boolean weatherCheck = false;
+        boolean weatherEnd = false;
+        boolean diseaseCheck = false;
+        boolean diseaseEnd = false;
+        for(int i = 0; i < count; i++) {
+            int kind = due[i] >> KIND_SHIFT;
+            int id = due[i] & ((1 << KIND_SHIFT) - 1);
+            if(kind == WEATHER_CHECK) {
+                weatherCheck = true;
+            } else if(kind == WEATHER_END) {
+                weatherEnd = true;
+            } else if(kind == DISEASE_CHECK) {
+                diseaseCheck = true;
+            } else if(kind == DISEASE_END) {
+                diseaseEnd = true;
+            } else {
+                awake[id] = kind == WAKE;
+                // The same change happens at the same time tomorrow.
+                calendar.schedule(step + Time.STEP_PER_DAY, due[i]);
+            }
+        }
+
+        if(weatherCheck) {
+            events.startWeather(step);
+            calendar.schedule(step + SavannaEvents.WEATHER_PER_STEP, WEATHER_CHECK << KIND_SHIFT);
+        }
+        if(weatherCheck || weatherEnd) {
+            events.expireWeather(step);
+            if(weatherCheck && events.isWeather()) {
+                calendar.schedule(events.getWeatherEnd(), WEATHER_END << KIND_SHIFT);
+            }
+        }
+        if(diseaseCheck) {
+            events.startDisease(step);
+            calendar.schedule(step + SavannaEvents.DISEASE_PER_STEP, DISEASE_CHECK << KIND_SHIFT);
+        }
+        if(diseaseCheck || diseaseEnd) {
+            events.expireDisease(step);
+            if(diseaseCheck && events.isDisease()) {
+                calendar.schedule(events.getDiseaseEnd(), DISEASE_END << KIND_SHIFT);
+            }
+        }
+    }
+
+    /**
+     * Reset the simulation to a starting position, and schedule the
+     * first events again.
+     */
+    public void reset()
+    {
+        super.reset();
+        scheduleFirstEvents();
+    }
+
+    /**
+     * Schedule the first weather and disease checks and the first
+     * wake and sleep of each species, and note which species are
+     * awake at the first step.
+     */
+    private void scheduleFirstEvents()
+    {
+        calendar.clear();
+        calendar.schedule(SavannaEvents.WEATHER_PER_STEP, WEATHER_CHECK << KIND_SHIFT);
+        calendar.schedule(SavannaEvents.DISEASE_PER_STEP, DISEASE_CHECK << KIND_SHIFT);
+        for(int id = 1; id < traits.length; id++) {
+            awake[id] = false;
+            if(traits[id] == null) {
+                continue;
+            }
+            awake[id] = traits[id].isAwake(Time.hourAt(1));
+            // Find the steps of the first day at which the species
+            // wakes or falls asleep.
+            for(int s = 2; s < 2 + Time.STEP_PER_DAY; s++) {
+                boolean before = traits[id].isAwake(Time.hourAt(s - 1));
+                boolean after = traits[id].isAwake(Time.hourAt(s));
+                if(before != after) {
+                    calendar.schedule(s, (after ? WAKE : SLEEP) << KIND_SHIFT | id);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.Arrays;
+
+/**
+ * A flat, row-major storage backend for a rectangular grid.
+ * Each cell holds a small species code and a reference to the
+ * entity occupying it, kept in two parallel arrays so that a
+ * neighbour lookup is a single indexed load instead of a double
+ * dereference followed by instanceof checks.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class FlatGrid
+{
+    // The code stored in empty cells.
+    public static final short EMPTY = 0;
+
+    // The depth and width of the grid.
+    private final int depth, width;
+    // The species code of each cell, row by row.
+    private final short[] codes;
+    // The entity occupying each cell, parallel to codes.
+    private final Object[] entities;
+
+    /**
+     * Create an empty grid of the given dimensions.
+     * @param depth The depth of the grid.
+     * @param width The width of the grid.
+     */
+    public FlatGrid(int depth, int width)
+    {
+        this.depth = depth;
+        this.width = width;
+        codes = new short[depth * width];
+        entities = new Object[depth * width];
+    }
+
+    /**
+     * Return the index of a cell in the flat arrays.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The row-major index of the cell.
+     */
+    public int indexOf(int row, int col)
+    {
+        return row * width + col;
+    }
+
+    /**
+     * Return the number of cells in the grid.
+     * @return The number of cells in the grid.
+     */
+    public int size()
+    {
+        return codes.length;
+    }
+
+    /**
+     * Copy the code of every cell into an array, row by row.
+     * @param into The array to copy into, at least size() long.
+     */
+    public void copyCodes(short[] into)
+    {
+        System.arraycopy(codes, 0, into, 0, codes.length);
+    }
+
+    /**
+     * Copy the code of some cells into an array, each to the same
+     * index. Whole words of set bits are copied in one go.
+     * @param into The array to copy into, at least size() long.
+     * @param cells The cells to copy, one bit per cell as in a dirty bitmap.
+     */
+    public void copyCodes(short[] into, long[] cells)
+    {
+        for(int word = 0; word < cells.length; word++) {
+            long bits = cells[word];
+            int first = word << 6;
+            if(bits == -1L) {
+                System.arraycopy(codes, first, into, first, Math.min(64, codes.length - first));
+                continue;
+            }
+            while(bits != 0) {
+                int index = first + Long.numberOfTrailingZeros(bits);
+                if(index < codes.length) {
+                    into[index] = codes[index];
+                }
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    /**
+     * Empty every cell of the grid.
+     */
+    public void clear()
+    {
+        Arrays.fill(codes, EMPTY);
+        Arrays.fill(entities, null);
+    }
+
+    /**
+     * Empty a single cell.
+     * @param index The index of the cell.
+     */
+    public void clear(int index)
+    {
+        codes[index] = EMPTY;
+        entities[index] = null;
+    }
+
+    /**
+     * Store an entity in a cell, replacing whatever was there.
+     * @param entity The entity to be stored.
+     * @param code The entity's code, which must not be EMPTY.
+     * @param index The index of the cell.
+     */
+    public void set(Object entity, short code, int index)
+    {
+        codes[index] = code;
+        entities[index] = entity;
+    }
+
+    /**
+     * Return the entity stored in a cell.
+     * @param index The index of the cell.
+     * @return The entity in the cell, or null if it is empty.
+     */
+    public Object get(int index)
+    {
+        return entities[index];
+    }
+
+    /**
+     * Return the species code stored in a cell.
+     * @param index The index of the cell.
+     * @return The code of the cell's occupant, or EMPTY.
+     */
+    public short getCode(int index)
+    {
+        return codes[index];
+    }
+
+    /**
+     * Return the depth of the grid.
+     * @return The depth of the grid.
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * Return the width of the grid.
+     * @return The width of the grid.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+}
@@ -0,0 +1,200 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An observer that stands between a simulation and its display and
+ * keeps the two rates apart. The simulation runs as fast as it can,
+ * or no faster than a given number of steps per second for demos,
+ * while the display is only handed a step when a frame is due at
+ * the target frame rate. The steps in between are not shown, so a
+ * fast simulation is not slowed down by frames nobody could see.
+ *
+ * The governor measures the steps per second it actually achieves,
+ * and the frames per second it offers the display, over windows of
+ * about a second. A display may draw fewer frames than it is offered,
+ * so SimulatorView counts the frames it draws itself.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class FrameGovernor implements SimulationObserver
+{
+    // The frame rate used unless another is given.
+    public static final double DEFAULT_FRAMES_PER_SECOND = 30;
+    // The number of nanoseconds in a second.
+    private static final long SECOND = 1_000_000_000L;
+
+    // The observer shown the steps that become frames.
+    private final SimulationObserver display;
+    // The time between frames, in nanoseconds.
+    private long frameInterval;
+    // The least time between steps, in nanoseconds; zero for no cap.
+    private long stepInterval;
+    // The time the next frame is due.
+    private long nextFrameAt;
+    // The time the next step may complete, when steps are capped.
+    private long nextStepAt;
+    // The start of the current measuring window, and the steps and frames offered in it.
+    private long windowStart;
+    private int windowSteps;
+    private int windowFrames;
+    // The rates measured over the last complete window.
+    private volatile double stepsPerSecond;
+    private volatile double framesOfferedPerSecond;
+
+    /**
+     * Create a governor for a display, at the default frame rate and
+     * with no cap on the steps per second.
+     * @param display The observer to show frames to.
+     */
+    public FrameGovernor(SimulationObserver display)
+    {
+        this(display, DEFAULT_FRAMES_PER_SECOND);
+    }
+
+    /**
+     * Create a governor for a display, with no cap on the steps per
+     * second.
+     * @param display The observer to show frames to.
+     * @param framesPerSecond The target frame rate. Must be greater than zero.
+     */
+    public FrameGovernor(SimulationObserver display, double framesPerSecond)
+    {
+        this.display = display;
+        setFramesPerSecond(framesPerSecond);
+        windowStart = System.nanoTime();
+        nextFrameAt = windowStart;
+    }
+
+    /**
+     * Set the target frame rate.
+     * @param framesPerSecond The frames per second. Must be greater than zero.
+     */
+    public void setFramesPerSecond(double framesPerSecond)
+    {
+        if(framesPerSecond <= 0) {
+            throw new IllegalArgumentException("framesPerSecond must be positive: " + framesPerSecond);
+        }
+        frameInterval = (long) (SECOND / framesPerSecond);
+    }
+
+    /**
+     * Cap the steps per second, so the simulation runs in something
+     * like real time.
+     * @param maxStepsPerSecond The most steps per second, or zero for no cap.
+     */
+    public void setMaxStepsPerSecond(double maxStepsPerSecond)
+    {
+        if(maxStepsPerSecond < 0) {
+            throw new IllegalArgumentException("maxStepsPerSecond must not be negative: " + maxStepsPerSecond);
+        }
+        stepInterval = maxStepsPerSecond == 0 ? 0 : (long) (SECOND / maxStepsPerSecond);
+        nextStepAt = System.nanoTime();
+    }
+
+    /**
+     * Count the step, show it if a frame is due, and wait if the
+     * steps are capped and this one came too soon. The starting
+     * position after a reset is always shown.
+     * @param simulator The simulation.
+     */
+    public void stepCompleted(Simulator simulator)
+    {
+        long now = System.nanoTime();
+        if(simulator.getStep() == 0 || now - nextFrameAt >= 0) {
+            display.stepCompleted(simulator);
+            windowFrames++;
+            // Keep to the frame schedule unless a whole frame behind.
+            nextFrameAt += frameInterval;
+            if(now - nextFrameAt >= 0) {
+                nextFrameAt = now + frameInterval;
+            }
+        }
+        windowSteps++;
+        if(stepInterval > 0) {
+            now = pace(now);
+        }
+        if(now - windowStart >= SECOND) {
+            double seconds = (double) (now - windowStart) / SECOND;
+            stepsPerSecond = windowSteps / seconds;
+            framesOfferedPerSecond = windowFrames / seconds;
+            windowStart = now;
+            windowSteps = 0;
+            windowFrames = 0;
+        }
+    }
+
+    /**
+     * Wait until the next step may run. Parking may end early, so it
+     * is repeated until the time has come, unless the thread is
+     * interrupted.
+     * @param now The time now.
+     * @return The time after waiting.
+     */
+    private long pace(long now)
+    {
+        nextStepAt += stepInterval;
+        if(nextStepAt - now > 0) {
+            while(nextStepAt - now > 0 && !Thread.currentThread().isInterrupted()) {
+                LockSupport.parkNanos(nextStepAt - now);
+                now = System.nanoTime();
+            }
+            return now;
+        }
+        if(now - nextStepAt > SECOND) {
+            // Too far behind to catch up; start again from now.
+            nextStepAt = now;
+        }
+        return now;
+    }
+
+    /**
+     * Pass the change on to the display.
+     * @param step The step just completed.
+     * @param population The number of animals of each species.
+     */
+    public void populationChanged(int step, int[] population)
+    {
+        display.populationChanged(step, population);
+    }
+
+    /**
+     * Show the last step, which may not have been due for a frame,
+     * and tell the display the run has stopped.
+     * @param simulator The simulation.
+     */
+    public void simulationStopped(Simulator simulator)
+    {
+        display.stepCompleted(simulator);
+        nextFrameAt = System.nanoTime() + frameInterval;
+        display.simulationStopped(simulator);
+    }
+
+    /**
+     * Pass the news on to the display.
+     * @param step The step at which the simulation stopped being viable.
+     */
+    public void viabilityLost(int step)
+    {
+        display.viabilityLost(step);
+    }
+
+    /**
+     * @return The steps per second over the last measuring window.
+     */
+    public double getStepsPerSecond()
+    {
+        return stepsPerSecond;
+    }
+
+    /**
+     * Return the frames handed to the display per second. The display
+     * may drop some of them unseen when it cannot keep up.
+     * @return The frames offered per second over the last measuring window.
+     */
+    public double getFramesOfferedPerSecond()
+    {
+        return framesOfferedPerSecond;
+    }
+}
@@ -0,0 +1,126 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A ring of three frame snapshots passed from the simulation thread
+ * to the thread that draws them. At any time the producer owns one
+ * slot, which it fills, the consumer owns another, which it draws,
+ * and the third holds the latest finished frame. Publishing swaps
+ * the producer's slot with the latest; taking swaps the consumer's
+ * slot with the latest if a newer frame is there.
+ *
+ * Neither side ever waits for the other. If the producer publishes
+ * faster than the consumer takes, the frames in between are dropped
+ * and the consumer always gets the newest.
+ *
+ * So that a dropped frame's dirty cells are not lost, the producer
+ * keeps the union of the dirty cells since the last frame it knows
+ * the consumer took, and publishes each frame with that union and the
+ * number of that frame as its base. It learns that the consumer took
+ * the previous frame when publishing hands back a slot that was not
+ * fresh.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class FrameRing
+{
+    // The flag marking the latest slot as not yet taken.
+    private static final int FRESH = 4;
+    // The mask picking the slot number out of the latest slot.
+    private static final int SLOT = 3;
+
+    // The three slots.
+    private final FrameSnapshot[] frames;
+    // The slot the producer is filling; only the producer uses it.
+    private int back;
+    // The slot the consumer is drawing; only the consumer uses it.
+    private int front;
+    // The slot with the latest finished frame, and whether it is fresh.
+    private final AtomicInteger latest;
+    // The number of frames published; only the producer uses it.
+    private long published;
+    // The last frame the consumer is known to have taken, or -1.
+    private long taken;
+    // The cells dirty since that frame, and those of the frame being published.
+    private final long[] sinceTaken;
+    private final long[] latestDirty;
+
+    /**
+     * Create a ring of snapshots of a grid.
+     * @param depth The depth of the grid.
+     * @param width The width of the grid.
+     */
+    public FrameRing(int depth, int width)
+    {
+        frames = new FrameSnapshot[3];
+        for(int i = 0; i < frames.length; i++) {
+            frames[i] = new FrameSnapshot(depth, width);
+        }
+        back = 0;
+        front = 1;
+        latest = new AtomicInteger(2);
+        taken = -1;
+        sinceTaken = new long[frames[0].getDirtyWordCount()];
+        latestDirty = new long[sinceTaken.length];
+    }
+
+    /**
+     * Return the snapshot for the producer to fill next. It stays
+     * the producer's until publish() is called.
+     * @return The snapshot to fill.
+     */
+    public FrameSnapshot nextFrame()
+    {
+        return frames[back];
+    }
+
+    /**
+     * Make the frame just filled the latest one, replacing any
+     * latest frame the consumer has not taken. The frame is numbered
+     * in order of publication, and its dirty cells are widened to
+     * those since the last frame the consumer is known to have taken.
+     * They are also marked stale in the other frames, which copy them
+     * when they are next filled.
+     */
+    public void publish()
+    {
+        FrameSnapshot frame = frames[back];
+        long[] dirty = frame.getDirtyCells();
+        for(int slot = 0; slot < frames.length; slot++) {
+            if(slot != back) {
+                frames[slot].markStale(dirty);
+            }
+        }
+        System.arraycopy(dirty, 0, latestDirty, 0, dirty.length);
+        for(int word = 0; word < dirty.length; word++) {
+            sinceTaken[word] |= dirty[word];
+            dirty[word] = sinceTaken[word];
+        }
+        long sequence = published++;
+        frame.setSequence(sequence, taken);
+        int previous = latest.getAndSet(back | FRESH);
+        back = previous & SLOT;
+        if((previous & FRESH) == 0 && sequence > 0) {
+            // The consumer took the frame published before this one,
+            // so later frames need only the changes since then.
+            taken = sequence - 1;
+            System.arraycopy(latestDirty, 0, sinceTaken, 0, sinceTaken.length);
+        }
+    }
+
+    /**
+     * Take the latest frame, if one has been published since the
+     * last call. It stays the consumer's until the next call.
+     * @return The latest frame, or null if there is no new frame.
+     */
+    public FrameSnapshot take()
+    {
+        if((latest.get() & FRESH) == 0) {
+            return null;
+        }
+        front = latest.getAndSet(front) & SLOT;
+        return frames[front];
+    }
+}
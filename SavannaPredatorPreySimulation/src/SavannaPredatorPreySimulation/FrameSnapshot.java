@@ -0,0 +1,266 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.Arrays;
+
+/**
+ * A compact copy of what the view shows for one step: the grid code
+ * of every cell and the status line. The simulation fills a snapshot
+ * and hands it over, so the view can draw it later on its own thread
+ * while the simulation carries on.
+ *
+ * A snapshot also records its place in the sequence of published
+ * snapshots, and which cells were placed or cleared since an earlier
+ * snapshot, its base. A viewer that has drawn the base or any later
+ * snapshot need only redraw those cells; one that has not must redraw
+ * everything. The base is usually the snapshot published just before,
+ * but further back when snapshots in between were dropped unseen.
+ *
+ * Filling a snapshot only copies the cells changed since it was last
+ * filled, so its cost follows the changes rather than the size of the
+ * savanna. The ring marks the cells each published frame changed as
+ * stale in the other snapshots. A snapshot filled for the first time,
+ * or from a different savanna, is copied whole, as is every cell after
+ * the savanna is cleared, since clearing marks every cell dirty.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class FrameSnapshot
+{
+    // The depth and width of the grid.
+    private final int depth, width;
+    // The grid code of every cell, row by row.
+    private final short[] codes;
+    // The cells placed or cleared since the base snapshot, one bit per cell.
+    private final long[] dirty;
+    // The number of snapshots published before this one.
+    private long sequence;
+    // The sequence number of the base snapshot, or -1 for none.
+    private long baseSequence;
+    // The cells changed since the snapshot was last filled, one bit
+    // per cell; only the producer uses it.
+    private final long[] stale;
+    // The savanna the snapshot was last filled from, or null.
+    private SavannaAnimal source;
+    // The step, day and hour the snapshot was taken at.
+    private int step;
+    private int day;
+    private int hour;
+    // The events under way.
+    private String weatherName;
+    private boolean isWeather;
+    private String diseaseName;
+    private boolean isDisease;
+
+    /**
+     * Create an empty snapshot of a grid.
+     * @param depth The depth of the grid.
+     * @param width The width of the grid.
+     */
+    public FrameSnapshot(int depth, int width)
+    {
+        this.depth = depth;
+        this.width = width;
+        codes = new short[depth * width];
+        dirty = new long[(depth * width + 63) >>> 6];
+        stale = new long[dirty.length];
+        Arrays.fill(stale, -1L);
+    }
+
+    /**
+     * Copy the state of the simulation into the snapshot.
+     * @param step Which iteration step it is.
+     * @param day The day of the simulation.
+     * @param hour The hour of the day.
+     * @param savanna The savanna whose animals are copied.
+     * @param weatherName The name of the current weather.
+     * @param isWeather Whether a weather event is under way.
+     * @param diseaseName The name of the current disease.
+     * @param isDisease Whether a disease event is under way.
+     */
+    public void capture(int step, int day, int hour, SavannaAnimal savanna, String weatherName, boolean isWeather, String diseaseName, boolean isDisease)
+    {
+        this.step = step;
+        this.day = day;
+        this.hour = hour;
+        this.weatherName = weatherName;
+        this.isWeather = isWeather;
+        this.diseaseName = diseaseName;
+        this.isDisease = isDisease;
+        savanna.takeDirtyCells(dirty);
+        if(savanna != source) {
+            // A savanna not copied from before is copied, and so
+            // redrawn, whole.
+            source = savanna;
+            Arrays.fill(dirty, -1L);
+        }
+        markStale(dirty);
+        savanna.copyCodes(codes, stale);
+        Arrays.fill(stale, 0);
+    }
+
+    /**
+     * Note that cells have changed since the snapshot was last
+     * filled, so they are copied when it is filled next.
+     * @param cells The changed cells, one bit per cell.
+     */
+    void markStale(long[] cells)
+    {
+        for(int word = 0; word < stale.length; word++) {
+            stale[word] |= cells[word];
+        }
+    }
+
+    /**
+     * Set the place of the snapshot in the sequence of those published.
+     * @param sequence The number of snapshots published before this one.
+     * @param baseSequence The sequence number of the snapshot the dirty cells are counted from.
+     */
+    void setSequence(long sequence, long baseSequence)
+    {
+        this.sequence = sequence;
+        this.baseSequence = baseSequence;
+    }
+
+    /**
+     * Return the snapshot the dirty cells are counted from. Every
+     * cell that differs between it, or any later snapshot, and this
+     * one is dirty.
+     * @return The sequence number of the base snapshot, or -1 for none.
+     */
+    public long getBaseSequence()
+    {
+        return baseSequence;
+    }
+
+    /**
+     * Return the bitmap of dirty cells, for the ring to widen when
+     * snapshots are dropped.
+     * @return The bitmap itself.
+     */
+    long[] getDirtyCells()
+    {
+        return dirty;
+    }
+
+    /**
+     * @return The number of snapshots published before this one.
+     */
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Return 64 bits of the dirty cell bitmap. Bit b of word w is
+     * set if cell 64 * w + b was placed or cleared since the base
+     * snapshot; bits past the last cell may be set too.
+     * @param word The number of the word.
+     * @return The bits of the word.
+     */
+    public long getDirtyWord(int word)
+    {
+        return dirty[word];
+    }
+
+    /**
+     * @return The number of words in the dirty cell bitmap.
+     */
+    public int getDirtyWordCount()
+    {
+        return dirty.length;
+    }
+
+    /**
+     * Return the grid code of a cell.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The code, or FlatGrid.EMPTY.
+     */
+    public short getCode(int row, int col)
+    {
+        return codes[row * width + col];
+    }
+
+    /**
+     * Return the grid code of a cell.
+     * @param index The index of the cell, counting row by row.
+     * @return The code, or FlatGrid.EMPTY.
+     */
+    public short getCode(int index)
+    {
+        return codes[index];
+    }
+
+    /**
+     * @return The depth of the grid.
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * @return The width of the grid.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * @return The step the snapshot was taken at.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * @return The day the snapshot was taken on.
+     */
+    public int getDay()
+    {
+        return day;
+    }
+
+    /**
+     * @return The hour the snapshot was taken at.
+     */
+    public int getHour()
+    {
+        return hour;
+    }
+
+    /**
+     * @return The name of the weather at the time.
+     */
+    public String getWeatherName()
+    {
+        return weatherName;
+    }
+
+    /**
+     * @return Whether a weather event was under way.
+     */
+    public boolean isWeather()
+    {
+        return isWeather;
+    }
+
+    /**
+     * @return The name of the disease at the time.
+     */
+    public String getDiseaseName()
+    {
+        return diseaseName;
+    }
+
+    /**
+     * @return Whether a disease event was under way.
+     */
+    public boolean isDisease()
+    {
+        return isDisease;
+    }
+}
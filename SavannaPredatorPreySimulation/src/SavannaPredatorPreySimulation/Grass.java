@@ -1,47 +1,25 @@
 package SavannaPredatorPreySimulation;
 
 /**
- * An abstract class representing shared characteristics of preys.
+ * The grass that covers every cell of the savanna. Grass carries no
+ * state of its own: whether a cell's grass is alive and how far it
+ * has regrown are kept by SavannaPlant, and this single shared
+ * object stands for living grass wherever the savanna is inspected.
  * 
  * @author Dennis Kolley
  * @version 2021.03.01
  */
-public class Grass extends Plant
+public class Grass
 {
-    // The value that when x reaches the grass regrows.
-    private static final int REGROWTH_VALUE = 4;
+    // Dead grass comes back once its regrowth passes this value.
+    public static final int REGROWTH_VALUE = 4;
+    // The object returned for every cell of living grass.
+    public static final Grass GRASS = new Grass();
     
     /**
-     * Create a new grass.
-     * @param savanna The savanna where the plants are.
-     * @param location The location of the plant
+     * Grass is shared, so only GRASS is ever created.
      */
-    public Grass(SavannaPlant savanna, Location location)
+    private Grass()
     {
-        super(savanna, location);
     }
-
-    /**
-     * This is what the plant does every step of the simulation.
-     * @param weatherChangeRatio What the weather does to the plant's death counter.
-     * @param isWeather True if there is a weather event.
-     */
-    
-    public void grow(double weatherChangeRatio, boolean isWeather) {
-        if(!alive) {
-            if(isWeather) {
-                setX(weatherChangeRatio);
-                if(getX() >= REGROWTH_VALUE + 1) {
-                    alive = true;
-                    setXZero();
-                }
-            } else {
-                incrementX();
-                if(getX() >= REGROWTH_VALUE + 1) {
-                    alive = true;
-                    setXZero();
-                }
-            }
-        }
-    }
-}
\ No newline at end of file
+}
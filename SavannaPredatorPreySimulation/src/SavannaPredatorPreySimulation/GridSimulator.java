@@ -0,0 +1,253 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The state and queries shared by the simulators that keep their
+ * animals in flat arrays rather than as objects: the size of the
+ * savanna, the code of the animal in each cell, the grass, the
+ * population and awake clock of each species, the time and the
+ * events. It sets up the starting savanna and runs the part of a step
+ * that comes before the animals act; each subclass decides how the
+ * animals act and where it keeps the rest of their state.
+ *
+ * A simulator built with a generator of its own draws every random
+ * number from it, so runs on different threads do not share one;
+ * otherwise it draws from Randomizer's shared generator.
+ *
+ * The constructor does not populate the savanna, since animals are
+ * placed through the subclass, whose arrays do not exist yet. Each
+ * subclass sets up its starting position at the end of its own
+ * constructor, without calling a method a further subclass could
+ * override.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public abstract class GridSimulator implements SimulationEngine
+{
+    // The traits of each species, indexed by species id.
+    protected static final SpeciesTraits[] traits = SpeciesTraits.bySpeciesId();
+
+    // The depth and width of the savanna.
+    protected final int depth, width;
+    // The code of the animal in each cell, as made by Species.codeOf.
+    protected short[] codes;
+    // The neighbours of every cell.
+    protected final Neighbourhood neighbourhood;
+    // The grass of the savanna.
+    protected final SavannaPlant savannaPlant;
+    // The number of living animals of each species, indexed by id.
+    protected final int[] population;
+    // The number of steps each species has been awake for, indexed by id.
+    protected final int[] clocks;
+    // Whether each species is awake this step, indexed by id.
+    protected final boolean[] awake;
+    // The current step of the simulation.
+    protected int step;
+    // The state of the disease for the current step.
+    protected boolean isDisease;
+    protected int lethality;
+    protected double infectionRate;
+    // The current time of the simulation.
+    protected Time time;
+    // The weather and disease events.
+    protected SavannaEvents events;
+    // A randomizer for the simulator.
+    protected final Random rand;
+
+    /**
+     * Create the shared state of a savanna of the given size.
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     * @throws IllegalArgumentException If the savanna has more than Integer.MAX_VALUE cells.
+     */
+    protected GridSimulator(int depth, int width)
+    {
+        this(depth, width, Randomizer.getRandom());
+    }
+
+    /**
+     * Create the shared state of a savanna of the given size, whose
+     * grass, animals and events all draw from the given generator.
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     * @param rand The random generator for this simulation alone.
+     * @throws IllegalArgumentException If the savanna has more than Integer.MAX_VALUE cells.
+     */
+    protected GridSimulator(int depth, int width, Random rand)
+    {
+        if(width <= 0 || depth <= 0) {
+            System.out.println("The dimensions must be greater than zero.");
+            System.out.println("Using default values.");
+            depth = Simulator.DEFAULT_DEPTH;
+            width = Simulator.DEFAULT_WIDTH;
+        }
+        Savanna.checkSize(depth, width);
+        this.depth = depth;
+        this.width = width;
+        this.rand = rand;
+        codes = new short[depth * width];
+        neighbourhood = new Neighbourhood(depth, width);
+        savannaPlant = new SavannaPlant(depth, width, rand);
+        population = new int[Species.getIdCount()];
+        clocks = new int[Species.getIdCount()];
+        awake = new boolean[Species.getIdCount()];
+        time = new Time();
+        events = new SavannaEvents(rand);
+    }
+
+    /**
+     * Run the simulation from its current state for the given number of steps.
+     * Stop before the given number of steps if it ceases to be viable.
+     * @param numSteps The number of steps to run for.
+     */
+    public void simulate(int numSteps)
+    {
+        for(int step = 1; step <= numSteps && isViable(); step++) {
+            simulateOneStep();
+        }
+    }
+
+    /**
+     * Start a step: move the clock on, update the events, grow the
+     * grass and note the state of the disease.
+     */
+    protected void beginStep()
+    {
+        step++;
+        time.calculateTime(step);
+
+        events.update(step);
+        savannaPlant.grow(events.getGrowthChange());
+
+        isDisease = events.isDisease();
+        lethality = events.getLethality();
+        infectionRate = events.getInfectionRate();
+    }
+
+    /**
+     * Work out which species are awake at this step's hour, and count
+     * one more awake step on the clock of each of them.
+     */
+    protected void wakeSpecies()
+    {
+        int hour = time.getHour();
+        for(int id = 1; id < awake.length; id++) {
+            awake[id] = traits[id] != null && traits[id].isAwake(hour);
+            if(awake[id]) {
+                clocks[id]++;
+            }
+        }
+    }
+
+    /**
+     * Reset the simulation to a starting position.
+     */
+    public void reset()
+    {
+        step = 0;
+        populateAnimals();
+        savannaPlant.growAll();
+        time.resetTime();
+        events.reset();
+    }
+
+    /**
+     * Randomly populate the savanna with animals, drawing the same
+     * random numbers in the same order as Simulator does.
+     */
+    private void populateAnimals()
+    {
+        Arrays.fill(codes, FlatGrid.EMPTY);
+        Arrays.fill(population, 0);
+        Arrays.fill(clocks, 0);
+        clearAnimals();
+        for(int cell = 0; cell < codes.length; cell++) {
+            Species species = Simulator.drawStartingSpecies(rand);
+            // else leave the location empty.
+            if(species != null) {
+                int id = species.getId();
+                addStartingAnimal(id, cell, rand.nextInt(2) == 0, traits[id].getMaxFoodValue());
+            }
+        }
+    }
+
+    /**
+     * Forget every animal, before the savanna is populated again.
+     * The codes, populations and clocks are already cleared.
+     */
+    protected abstract void clearAnimals();
+
+    /**
+     * Place an animal of the starting population, born at step zero,
+     * and count it in the population.
+     * @param id The id of the animal's species.
+     * @param cell The cell the animal occupies.
+     * @param isFemale Whether the animal is female.
+     * @param starveAt The awake step at which the animal starves.
+     */
+    protected abstract void addStartingAnimal(int id, int cell, boolean isFemale, int starveAt);
+
+    /**
+     * Determine whether the simulation should continue to run.
+     * @return true If there is more than one species alive.
+     */
+    public boolean isViable()
+    {
+        int nonZero = 0;
+        for(int id = 1; id < population.length; id++) {
+            if(population[id] > 0) {
+                nonZero++;
+            }
+        }
+        return nonZero > 1;
+    }
+
+    /**
+     * Return the number of living animals of a species.
+     * @param species The species counted.
+     * @return The number of living animals of that species.
+     */
+    public int getPopulation(Species species)
+    {
+        return population[species.getId()];
+    }
+
+    /**
+     * Return the species of the animal in a cell.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The species, or null if the cell is empty.
+     */
+    public Species getSpeciesAt(int row, int col)
+    {
+        return Species.byId(codes[row * width + col] >> 1);
+    }
+
+    /**
+     * @return The depth of the savanna.
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * @return The width of the savanna.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Return the number of steps of the simulator.
+     * @return The current step number of the simulator.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+}
@@ -0,0 +1,173 @@
+package SavannaPredatorPreySimulation;
+
+/**
+ * A histogram of durations in nanoseconds, in buckets whose width
+ * grows with the duration. Each power of two is split into eight
+ * buckets, so any duration is placed within an eighth of its value,
+ * from a few nanoseconds up to centuries, in under 500 counters.
+ * Recording a duration is a few shifts and an increment, with no
+ * allocation, so it can be done many times a step.
+ *
+ * Percentiles are read from the buckets, and are given as the upper
+ * end of the bucket they fall in. The largest and smallest values are
+ * kept exactly.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class LatencyHistogram
+{
+    // The number of bits of a duration kept below its highest bit.
+    private static final int SUB_BITS = 3;
+    // The number of buckets each power of two is split into.
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // The number of buckets, enough for any positive long.
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    // The number of durations in each bucket.
+    private final long[] counts;
+    // The number of durations recorded, and their sum.
+    private long count;
+    private long total;
+    // The smallest and largest durations recorded.
+    private long min;
+    private long max;
+
+    /**
+     * Create an empty histogram.
+     */
+    public LatencyHistogram()
+    {
+        counts = new long[BUCKETS];
+        reset();
+    }
+
+    /**
+     * Record a duration.
+     * @param nanos The duration in nanoseconds; negative ones count as zero.
+     */
+    public void record(long nanos)
+    {
+        if(nanos < 0) {
+            nanos = 0;
+        }
+        counts[bucketOf(nanos)]++;
+        count++;
+        total += nanos;
+        if(nanos < min) {
+            min = nanos;
+        }
+        if(nanos > max) {
+            max = nanos;
+        }
+    }
+
+    /**
+     * Return the bucket a duration falls in. Durations below
+     * SUB_BUCKETS have a bucket each; above that the bucket is picked
+     * by the highest bit and the SUB_BITS bits below it.
+     * @param nanos The duration, not negative.
+     * @return The index of the bucket.
+     */
+    private static int bucketOf(long nanos)
+    {
+        if(nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int highBit = 63 - Long.numberOfLeadingZeros(nanos);
+        int shift = highBit - SUB_BITS;
+        return (shift + 1) << SUB_BITS | (int) (nanos >>> shift) & (SUB_BUCKETS - 1);
+    }
+
+    /**
+     * Return the largest duration that falls in a bucket.
+     * @param bucket The index of the bucket.
+     * @return The upper end of the bucket, in nanoseconds.
+     */
+    private static long upperEndOf(int bucket)
+    {
+        if(bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >> SUB_BITS) - 1;
+        long lower = (long) (SUB_BUCKETS | bucket & (SUB_BUCKETS - 1)) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * Return the duration below which a given fraction of those
+     * recorded fall.
+     * @param fraction The fraction, from 0 to 1; 0.5 for the median.
+     * @return The percentile in nanoseconds, or 0 if nothing is recorded.
+     */
+    public long getPercentile(double fraction)
+    {
+        if(count == 0) {
+            return 0;
+        }
+        // The rank of the duration wanted, counting from one.
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for(int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if(seen >= rank) {
+                return Math.max(min, Math.min(max, upperEndOf(bucket)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return The number of durations recorded.
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * @return The sum of the durations recorded, in nanoseconds.
+     */
+    public long getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * @return The mean duration in nanoseconds, or 0 if nothing is recorded.
+     */
+    public double getMean()
+    {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * @return The smallest duration recorded, or 0 if nothing is recorded.
+     */
+    public long getMin()
+    {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return The largest duration recorded, or 0 if nothing is recorded.
+     */
+    public long getMax()
+    {
+        return max;
+    }
+
+    /**
+     * Forget every duration recorded.
+     */
+    public void reset()
+    {
+        for(int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] = 0;
+        }
+        count = 0;
+        total = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+}
@@ -19,14 +19,16 @@ public class Lion extends Predator
     private static final double BREEDING_PROBABILITY = 0.14;
     // The maximum number of births.
     private static final int MAX_LITTER_SIZE = 6;
-    // Name of the animal in a String.
-    private static final String NAME = "Lion";
+    // The species of the animal.
+    private static final Species SPECIES = Species.LION;
     // When the animal falls asleep.
     private static final int SLEEP = 8;
     // How much the animal sleeps.
     private static final int SLEEP_AMOUNT = 10;
     // Preys that lions eat.
-    private static final String[] preys = {"Buffalo", "Zebra", "Antelope"};
+    private static final int DIET = Species.maskOf(Species.BUFFALO, Species.ZEBRA, Species.ANTELOPE);
+    // The characteristics above, shared by every lion.
+    static final SpeciesTraits TRAITS = new SpeciesTraits(SPECIES, MAX_AGE, MAX_FOOD_VALUE, BREEDING_AGE, MAX_LITTER_SIZE, BREEDING_PROBABILITY, SLEEP, SLEEP_AMOUNT, DIET);
     
     /**
      * Create a lion. A lion can be created as a new born (age zero
@@ -37,7 +39,7 @@ public class Lion extends Predator
      */
     public Lion(boolean randomAge, SavannaAnimal savanna, Location location)
     {
-        super(randomAge, savanna, location, MAX_AGE, MAX_FOOD_VALUE, BREEDING_AGE, MAX_LITTER_SIZE, BREEDING_PROBABILITY, NAME, SLEEP, SLEEP_AMOUNT, preys);
+        super(randomAge, savanna, location, TRAITS);
     }
     
     /**
@@ -28,6 +28,10 @@ public class Location
      */
     public boolean equals(Object obj)
     {
+        if(obj == this) {
+            // Savannas hand out one Location per cell.
+            return true;
+        }
         if(obj instanceof Location) {
             Location other = (Location) obj;
             return row == other.getRow() && col == other.getCol();
@@ -47,14 +51,16 @@ public class Location
     }
     
     /**
-     * Use the top 16 bits for the row value and the bottom for
-     * the column. Except for very big grids, this should give a
-     * unique hash code for each (row, col) pair.
+     * Spread the row over the whole hash range with a large odd
+     * multiplier and add the column. This avoids the collisions of
+     * shifting the row by 16 bits, where every row of a grid wider
+     * than 65535 columns overlaps the next. Distinct locations may
+     * still share a hash code.
      * @return A hashcode for the location.
      */
     public int hashCode()
     {
-        return (row << 16) + col;
+        return row * 0x9E3779B9 + col;
     }
     
     /**
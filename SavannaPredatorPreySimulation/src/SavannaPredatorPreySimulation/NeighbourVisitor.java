@@ -0,0 +1,18 @@
+package SavannaPredatorPreySimulation;
+
+/**
+ * A callback used to walk the neighbours of a grid cell without
+ * building a list of locations.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public interface NeighbourVisitor
+{
+    /**
+     * Called once for each neighbouring cell.
+     * @param index The index of the neighbouring cell.
+     * @return true to carry on, false to stop visiting.
+     */
+    boolean visit(int index);
+}
@@ -0,0 +1,148 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.Random;
+
+/**
+ * Precomputed adjacency for a rectangular grid stored row by row.
+ * The index offsets of the eight neighbours are worked out once for
+ * every kind of cell (interior, edge, corner), so finding the
+ * neighbours of a cell needs no per-neighbour bounds checks and
+ * creates no objects.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class Neighbourhood
+{
+    // The largest number of neighbours a cell can have.
+    public static final int MAX_NEIGHBOURS = 8;
+
+    // Bits describing which edges of the grid a row or column touches.
+    private static final int LOW_EDGE = 1;
+    private static final int HIGH_EDGE = 2;
+
+    // The depth and width of the grid.
+    private final int depth, width;
+    // The neighbour offsets for each kind of cell, indexed by kindOf.
+    private final int[][] offsets;
+
+    /**
+     * Precompute the neighbour offsets for a grid of the given size.
+     * @param depth The depth of the grid.
+     * @param width The width of the grid.
+     */
+    public Neighbourhood(int depth, int width)
+    {
+        this.depth = depth;
+        this.width = width;
+        offsets = new int[16][];
+        for(int rowKind = 0; rowKind < 4; rowKind++) {
+            for(int colKind = 0; colKind < 4; colKind++) {
+                offsets[rowKind * 4 + colKind] = makeOffsets(rowKind, colKind);
+            }
+        }
+    }
+
+    /**
+     * Work out the offsets for one kind of cell. The offsets are
+     * listed in the same order adjacentLocations always used, so a
+     * shuffle with the same random numbers gives the same result.
+     * @param rowKind The edges touched by the cell's row.
+     * @param colKind The edges touched by the cell's column.
+     * @return The index offsets of the cell's neighbours.
+     */
+    private int[] makeOffsets(int rowKind, int colKind)
+    {
+        int[] table = new int[MAX_NEIGHBOURS];
+        int count = 0;
+        for(int roffset = -1; roffset <= 1; roffset++) {
+            if(roffset == -1 && (rowKind & LOW_EDGE) != 0 || roffset == 1 && (rowKind & HIGH_EDGE) != 0) {
+                continue;
+            }
+            for(int coffset = -1; coffset <= 1; coffset++) {
+                if(coffset == -1 && (colKind & LOW_EDGE) != 0 || coffset == 1 && (colKind & HIGH_EDGE) != 0) {
+                    continue;
+                }
+                if(roffset != 0 || coffset != 0) {
+                    table[count++] = roffset * width + coffset;
+                }
+            }
+        }
+        int[] result = new int[count];
+        System.arraycopy(table, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * Return the offset table for the cell at the given position.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The index offsets of the cell's neighbours.
+     */
+    private int[] offsetsFor(int row, int col)
+    {
+        int rowKind = (row == 0 ? LOW_EDGE : 0) | (row == depth - 1 ? HIGH_EDGE : 0);
+        int colKind = (col == 0 ? LOW_EDGE : 0) | (col == width - 1 ? HIGH_EDGE : 0);
+        return offsets[rowKind * 4 + colKind];
+    }
+
+    /**
+     * Write the indices of the cells adjacent to the given one
+     * into a buffer, in a fixed order.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @param buffer Receives the indices; must hold MAX_NEIGHBOURS values.
+     * @return The number of indices written.
+     */
+    public int neighbours(int row, int col, int[] buffer)
+    {
+        int[] table = offsetsFor(row, col);
+        int index = row * width + col;
+        for(int i = 0; i < table.length; i++) {
+            buffer[i] = index + table[i];
+        }
+        return table.length;
+    }
+
+    /**
+     * Write the indices of the cells adjacent to the given one
+     * into a buffer, in a random order. The shuffle draws the same
+     * numbers as Collections.shuffle would for the same list.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @param buffer Receives the indices; must hold MAX_NEIGHBOURS values.
+     * @param rand The random generator used for the shuffle.
+     * @return The number of indices written.
+     */
+    public int shuffledNeighbours(int row, int col, int[] buffer, Random rand)
+    {
+        int count = neighbours(row, col, buffer);
+        for(int i = count; i > 1; i--) {
+            int j = rand.nextInt(i);
+            int swap = buffer[i - 1];
+            buffer[i - 1] = buffer[j];
+            buffer[j] = swap;
+        }
+        return count;
+    }
+
+    /**
+     * Visit the cells adjacent to the given one in a fixed order,
+     * stopping early if the visitor asks to.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @param visitor The visitor to call for each neighbour.
+     * @return true if every neighbour was visited.
+     */
+    public boolean forEachNeighbour(int row, int col, NeighbourVisitor visitor)
+    {
+        int[] table = offsetsFor(row, col);
+        int index = row * width + col;
+        for(int i = 0; i < table.length; i++) {
+            if(!visitor.visit(index + table[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,537 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A predator-prey simulator that runs each step on several threads.
+ * The savanna is cut into square tiles, coloured like a 2x2
+ * checkerboard, and the step runs in four phases, one per colour. An
+ * animal only ever reads or changes the cells next to it, so while
+ * the tiles of one colour are being worked on, each of them together
+ * with its one-cell border belongs to a single thread, and moves,
+ * kills and births never race across a tile edge.
+ *
+ * An animal's state is kept in the cell it occupies rather than in a
+ * list, so that moving and dying need no shared structure. Each
+ * animal draws its random numbers from CounterRandom streams named by
+ * the seed, the step, its cell and what the numbers are for, so a run
+ * gives the same result whatever the number of threads. The rules are those of
+ * ArraySimulator except that a grazer only eats grass in a free cell,
+ * since a cell cannot hold two animals' state at once; the order in
+ * which animals act differs, so the runs themselves differ too.
+ *
+ * The simulator runs on a fork-join pool that is either its own, which
+ * close() shuts down, or one handed to it, which many simulators can
+ * share and which the caller shuts down.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class ParallelSimulator extends GridSimulator implements AutoCloseable
+{
+    // The default length of a tile's side.
+    public static final int DEFAULT_TILE_SIZE = 32;
+    // The smallest tile side that keeps tiles of one colour apart.
+    private static final int MIN_TILE_SIZE = 2;
+    // The number of colours tiles are divided into.
+    private static final int COLOURS = 4;
+
+    // The awake step at which the animal in each cell had age zero.
+    private final int[] bornAt;
+    // The awake step at which the animal in each cell starves.
+    private final int[] starveAt;
+    // The last step the animal in each cell acted in.
+    private final int[] acted;
+    // The tiles of each colour.
+    private final Tile[][] tilesByColour;
+    // The threads that work on the tiles.
+    private final ForkJoinPool pool;
+    // Whether the pool was made by this simulator, which shuts it down.
+    private final boolean ownsPool;
+    // The seed every tile's generator is derived from.
+    private long seed;
+
+    /**
+     * Construct a simulation savanna with default size, using a
+     * thread for each processor.
+     */
+    public ParallelSimulator()
+    {
+        this(Simulator.DEFAULT_DEPTH, Simulator.DEFAULT_WIDTH);
+    }
+
+    /**
+     * Create a simulation savanna with the given size, using a
+     * thread for each processor.
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     */
+    public ParallelSimulator(int depth, int width)
+    {
+        this(depth, width, Runtime.getRuntime().availableProcessors(), DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Create a simulation savanna with the given size.
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     * @param threads The number of threads to run on. Must be greater than zero.
+     * @param tileSize The length of a tile's side. Must be at least 2.
+     */
+    public ParallelSimulator(int depth, int width, int threads, int tileSize)
+    {
+        this(depth, width, new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors()), true, tileSize, Randomizer.getRandom());
+    }
+
+    /**
+     * Create a simulation savanna with the given size, using a
+     * thread for each processor, whose savanna, animals and events
+     * all draw from the given generator.
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     * @param rand The random generator for this simulation alone.
+     */
+    public ParallelSimulator(int depth, int width, Random rand)
+    {
+        this(depth, width, new ForkJoinPool(Runtime.getRuntime().availableProcessors()), true, DEFAULT_TILE_SIZE, rand);
+    }
+
+    /**
+     * Create a simulation savanna with the given size that runs on a
+     * pool shared with others. The pool is not shut down by close().
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     * @param pool The pool to run on.
+     * @param tileSize The length of a tile's side. Must be at least 2.
+     */
+    public ParallelSimulator(int depth, int width, ForkJoinPool pool, int tileSize)
+    {
+        this(depth, width, pool, false, tileSize, Randomizer.getRandom());
+    }
+
+    /**
+     * Create a simulation savanna with the given size that runs on a
+     * pool shared with others, such as one run of an ensemble, and
+     * draws from the given generator. The pool is not shut down by
+     * close().
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     * @param pool The pool to run on.
+     * @param tileSize The length of a tile's side. Must be at least 2.
+     * @param rand The random generator for this simulation alone.
+     */
+    public ParallelSimulator(int depth, int width, ForkJoinPool pool, int tileSize, Random rand)
+    {
+        this(depth, width, pool, false, tileSize, rand);
+    }
+
+    /**
+     * Create a simulation savanna with the given size and pool.
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     * @param pool The pool to run on.
+     * @param ownsPool Whether close() shuts the pool down.
+     * @param tileSize The length of a tile's side. Must be at least 2.
+     * @param rand The random generator for the simulation.
+     */
+    private ParallelSimulator(int depth, int width, ForkJoinPool pool, boolean ownsPool, int tileSize, Random rand)
+    {
+        super(depth, width, rand);
+        tileSize = Math.max(MIN_TILE_SIZE, tileSize);
+        bornAt = new int[codes.length];
+        starveAt = new int[codes.length];
+        acted = new int[codes.length];
+        tilesByColour = makeTiles(tileSize);
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+
+        // Setup a valid starting point.
+        reset();
+    }
+
+    /**
+     * Cut the savanna into tiles and sort them by colour.
+     * @param tileSize The length of a tile's side.
+     * @return The tiles of each colour.
+     */
+    private Tile[][] makeTiles(int tileSize)
+    {
+        List<List<Tile>> byColour = new ArrayList<>();
+        for(int colour = 0; colour < COLOURS; colour++) {
+            byColour.add(new ArrayList<>());
+        }
+        for(int row = 0, tileRow = 0; row < depth; row += tileSize, tileRow++) {
+            for(int col = 0, tileCol = 0; col < width; col += tileSize, tileCol++) {
+                Tile tile = new Tile(row, col, Math.min(depth, row + tileSize), Math.min(width, col + tileSize));
+                byColour.get((tileRow & 1) * 2 + (tileCol & 1)).add(tile);
+            }
+        }
+        Tile[][] tiles = new Tile[COLOURS][];
+        for(int colour = 0; colour < COLOURS; colour++) {
+            tiles[colour] = byColour.get(colour).toArray(new Tile[0]);
+        }
+        return tiles;
+    }
+
+    /**
+     * Run the simulation from its current state for a single step.
+     * The events and the grass are updated first, then the tiles of
+     * each colour in turn are worked on in parallel.
+     */
+    public void simulateOneStep()
+    {
+        beginStep();
+        wakeSpecies();
+
+        for(int colour = 0; colour < COLOURS; colour++) {
+            Tile[] tiles = tilesByColour[colour];
+            pool.invoke(new TileBatch(tiles, 0, tiles.length));
+        }
+        // Gather what the tiles did, in a fixed order.
+        for(Tile[] tiles : tilesByColour) {
+            for(Tile tile : tiles) {
+                tile.collect();
+            }
+        }
+    }
+
+    /**
+     * Shut down the simulator's own pool, letting its threads end.
+     * A shared pool is left running. The simulator cannot take any
+     * more steps afterwards.
+     */
+    public void close()
+    {
+        if(ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Reset the simulation to a starting position, with a new seed
+     * for the animals' generators.
+     */
+    public void reset()
+    {
+        super.reset();
+        seed = rand.nextLong();
+    }
+
+    /**
+     * Forget the steps the animals last acted in.
+     */
+    protected void clearAnimals()
+    {
+        Arrays.fill(acted, 0);
+    }
+
+    /**
+     * Place an animal of the starting population in its cell, and
+     * count it.
+     * @param id The id of the animal's species.
+     * @param cell The cell the animal occupies.
+     * @param isFemale Whether the animal is female.
+     * @param starveAt The awake step at which the animal starves.
+     */
+    protected void addStartingAnimal(int id, int cell, boolean isFemale, int starveAt)
+    {
+        codes[cell] = Species.byId(id).codeOf(isFemale);
+        bornAt[cell] = 0;
+        this.starveAt[cell] = starveAt;
+        population[id]++;
+    }
+
+    /**
+     * A fork-join task working on a range of tiles of one colour,
+     * split in half until a single tile is left.
+     */
+    private class TileBatch extends RecursiveAction
+    {
+        // The version of the serialized form, which RecursiveAction requires.
+        private static final long serialVersionUID = 1L;
+
+        // The tiles worked on, from first up to but not including last.
+        private final Tile[] tiles;
+        private final int first, last;
+
+        /**
+         * Create a task for a range of tiles.
+         * @param tiles The tiles of one colour.
+         * @param first The first tile of the range.
+         * @param last One past the last tile of the range.
+         */
+        TileBatch(Tile[] tiles, int first, int last)
+        {
+            this.tiles = tiles;
+            this.first = first;
+            this.last = last;
+        }
+
+        /**
+         * Work on the tiles, splitting the range between threads.
+         */
+        protected void compute()
+        {
+            if(last - first == 1) {
+                tiles[first].run();
+            } else if(last - first > 1) {
+                int middle = (first + last) >>> 1;
+                invokeAll(new TileBatch(tiles, first, middle), new TileBatch(tiles, middle, last));
+            }
+        }
+    }
+
+    /**
+     * One tile of the savanna, with the scratch space and random
+     * generator used by whichever thread works on it.
+     */
+    private class Tile
+    {
+        // The rows and columns covered, from the first up to but not including the last.
+        private final int firstRow, firstCol, lastRow, lastCol;
+        // A generator pointed at each of an animal's streams in turn.
+        private CounterRandom tileRand;
+        // Scratch space for the indices of neighbouring cells.
+        private final int[] adjacent;
+        // The change in each species' population this step.
+        private final int[] change;
+        // The cells whose grass was eaten this step.
+        private int[] eaten;
+        private int eatenCount;
+
+        /**
+         * Create a tile.
+         * @param firstRow The first row covered.
+         * @param firstCol The first column covered.
+         * @param lastRow One past the last row covered.
+         * @param lastCol One past the last column covered.
+         */
+        Tile(int firstRow, int firstCol, int lastRow, int lastCol)
+        {
+            this.firstRow = firstRow;
+            this.firstCol = firstCol;
+            this.lastRow = lastRow;
+            this.lastCol = lastCol;
+            adjacent = new int[Neighbourhood.MAX_NEIGHBOURS];
+            change = new int[Species.getIdCount()];
+            eaten = new int[16];
+        }
+
+        /**
+         * Let every awake animal in the tile that has not yet acted
+         * this step take its turn, in row-major order.
+         */
+        void run()
+        {
+            tileRand = new CounterRandom(seed);
+            for(int row = firstRow; row < lastRow; row++) {
+                for(int cell = row * width + firstCol, end = row * width + lastCol; cell < end; cell++) {
+                    int code = codes[cell];
+                    if(code != FlatGrid.EMPTY && acted[cell] != step && awake[code >> 1]) {
+                        act(cell);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Hand the tile's eaten grass and population changes to the
+         * simulator. Called on one thread once every tile has run.
+         */
+        void collect()
+        {
+            for(int i = 0; i < eatenCount; i++) {
+                savannaPlant.queueRegrowth(eaten[i]);
+            }
+            eatenCount = 0;
+            for(int id = 1; id < change.length; id++) {
+                population[id] += change[id];
+                change[id] = 0;
+            }
+        }
+
+        /**
+         * Let the animal in a cell take its turn, as Animal.act does.
+         * @param cell The cell of the animal.
+         */
+        private void act(int cell)
+        {
+            int id = codes[cell] >> 1;
+            SpeciesTraits t = traits[id];
+            int now = clocks[id];
+            acted[cell] = step;
+            if(now >= starveAt[cell]) {
+                kill(cell);
+                return;
+            }
+            tileRand.select(step, cell, CounterRandom.DISEASE);
+            if(isDisease && tileRand.nextDouble() <= infectionRate) {
+                bornAt[cell] -= lethality - 1;
+            }
+            if(now - bornAt[cell] > t.getMaxAge()) {
+                kill(cell);
+                return;
+            }
+
+            tileRand.select(step, cell, CounterRandom.MEET);
+            if(meet(cell)) {
+                tileRand.select(step, cell, CounterRandom.BIRTH);
+                giveBirth(cell, now, t);
+            }
+            // Move towards a source of food if found.
+            tileRand.select(step, cell, CounterRandom.FOOD);
+            int target = t.getDiet() != 0 ? hunt(cell, now, t) : graze(cell, now, t);
+            if(target < 0) {
+                // No food found - try to move to a free location.
+                tileRand.select(step, cell, CounterRandom.MOVE);
+                if(freeAdjacentIndices(cell) > 0) {
+                    target = adjacent[0];
+                }
+            }
+            // See if it was possible to move.
+            if(target >= 0) {
+                moveTo(cell, target);
+            } else {
+                // Overcrowding.
+                kill(cell);
+            }
+        }
+
+        /**
+         * Return whether an animal of the same species and opposite
+         * sex is in a cell next to the animal.
+         * @param cell The cell of the animal.
+         * @return true if a mate was found.
+         */
+        private boolean meet(int cell)
+        {
+            int mate = codes[cell] ^ 1;
+            int count = neighbourhood.shuffledNeighbours(cell / width, cell % width, adjacent, tileRand);
+            for(int i = 0; i < count; i++) {
+                if(codes[adjacent[i]] == mate) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Give birth to newborns in the free cells around the animal.
+         * @param cell The cell of the parent.
+         * @param now The species' awake clock.
+         * @param t The traits of the parent's species.
+         */
+        private void giveBirth(int cell, int now, SpeciesTraits t)
+        {
+            int free = freeAdjacentIndices(cell);
+            int births = 0;
+            if(now - bornAt[cell] >= t.getBreedingAge() && tileRand.nextDouble() <= t.getBreedingProbability()) {
+                births = tileRand.nextInt(t.getMaxLitterSize()) + 1;
+            }
+            Species species = t.getSpecies();
+            for(int b = 0; b < births && b < free; b++) {
+                int young = adjacent[b];
+                codes[young] = species.codeOf(tileRand.nextInt(2) == 0);
+                bornAt[young] = now;
+                starveAt[young] = now + t.getMaxFoodValue();
+                // Newborns first act in the next step.
+                acted[young] = step;
+                change[species.getId()]++;
+            }
+        }
+
+        /**
+         * Look for prey next to a predator. Only the first is eaten.
+         * @param cell The cell of the predator.
+         * @param now The species' awake clock.
+         * @param t The traits of the predator's species.
+         * @return The cell of the prey eaten, or -1 if none was found.
+         */
+        private int hunt(int cell, int now, SpeciesTraits t)
+        {
+            int diet = t.getDiet();
+            int count = neighbourhood.shuffledNeighbours(cell / width, cell % width, adjacent, tileRand);
+            for(int i = 0; i < count; i++) {
+                int where = adjacent[i];
+                if(Species.inDiet(diet, codes[where])) {
+                    kill(where);
+                    starveAt[cell] = now + t.getMaxFoodValue();
+                    return where;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Look for live grass in a free cell next to a grazer. Only
+         * the first is eaten.
+         * @param cell The cell of the grazer.
+         * @param now The species' awake clock.
+         * @param t The traits of the grazer's species.
+         * @return The cell of the grass eaten, or -1 if none was found.
+         */
+        private int graze(int cell, int now, SpeciesTraits t)
+        {
+            int count = neighbourhood.shuffledNeighbours(cell / width, cell % width, adjacent, tileRand);
+            for(int i = 0; i < count; i++) {
+                int where = adjacent[i];
+                if(codes[where] == FlatGrid.EMPTY && savannaPlant.eat(where)) {
+                    if(eatenCount == eaten.length) {
+                        eaten = Arrays.copyOf(eaten, eatenCount * 2);
+                    }
+                    eaten[eatenCount++] = where;
+                    starveAt[cell] = now + t.getMaxFoodValue();
+                    return where;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Write the free cells next to a cell into the scratch buffer,
+         * in a random order.
+         * @param cell The cell whose neighbours are searched.
+         * @return The number of free cells found.
+         */
+        private int freeAdjacentIndices(int cell)
+        {
+            int count = neighbourhood.shuffledNeighbours(cell / width, cell % width, adjacent, tileRand);
+            int free = 0;
+            for(int i = 0; i < count; i++) {
+                if(codes[adjacent[i]] == FlatGrid.EMPTY) {
+                    adjacent[free++] = adjacent[i];
+                }
+            }
+            return free;
+        }
+
+        /**
+         * Move the animal in a cell to another cell.
+         * @param cell The cell of the animal.
+         * @param target The free cell to move to.
+         */
+        private void moveTo(int cell, int target)
+        {
+            codes[target] = codes[cell];
+            bornAt[target] = bornAt[cell];
+            starveAt[target] = starveAt[cell];
+            acted[target] = acted[cell];
+            codes[cell] = FlatGrid.EMPTY;
+        }
+
+        /**
+         * Remove the animal in a cell, which has died.
+         * @param cell The cell of the animal.
+         */
+        private void kill(int cell)
+        {
+            change[codes[cell] >> 1]--;
+            codes[cell] = FlatGrid.EMPTY;
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package SavannaPredatorPreySimulation;
 
 import java.util.List;
-import java.util.Iterator;
 
 /**
  * An abstract class representing shared characteristics of predators.
@@ -11,29 +10,17 @@ import java.util.Iterator;
  */
 public abstract class Predator extends Animal
 {
-    // Prey that the predator eats.
-    private String[] preys;
-
     /**
      * Create a new predator at location in savanna.
      * 
      * @param randomAge True if the animal borns with a random age.
      * @param savanna The savanna currently occupied.
      * @param location The location within the savanna.
-     * @param maxAge The animal's maximum age.
-     * @param maxFoodValue The animal's maximum food level.
-     * @param breedingAge The age at which the animal can start giving birth.
-     * @param maxLitterSize The maximum number of kids an animal can have when giving birth.
-     * @param breedingProbability The probability that an animal will give birth when meeting an opposite gender.
-     * @param name The name of the species of the animal.
-     * @param sleep The time at when the animal falls asleep.
-     * @param sleepAmount The number of hours the animal sleeps.
-     * @param preys The name of the species of the animal that the predator can eat.
+     * @param traits The characteristics shared by the animal's species, including its diet.
      */
-    public Predator(boolean randomAge, SavannaAnimal savanna, Location location, int maxAge, int maxFoodValue, int breedingAge, int maxLitterSize, double breedingProbability,String name, int sleep, int sleepAmount, String[] preys)
+    public Predator(boolean randomAge, SavannaAnimal savanna, Location location, SpeciesTraits traits)
     {
-        super(randomAge, savanna, location, maxAge, maxFoodValue, breedingAge, maxLitterSize, breedingProbability, name, sleep, sleepAmount);
-        this.preys = preys;
+        super(randomAge, savanna, location, traits);
     }
 
     /**
@@ -44,21 +31,17 @@ public abstract class Predator extends Animal
     protected Location findFood()
     {
         SavannaAnimal savanna = getSavanna();
-        List<Location> adjacent = savanna.adjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
-        while(it.hasNext()) {
-            Location where = it.next();
-            Object object = savanna.getObjectAt(where);
-            if(object instanceof Prey) {
-                Prey prey  = (Prey) object;
+        int diet = getTraits().getDiet();
+        int[] adjacent = savanna.getScratch();
+        int count = savanna.adjacentIndices(getLocation(), adjacent);
+        for(int i = 0; i < count; i++) {
+            int where = adjacent[i];
+            if(Species.inDiet(diet, savanna.getCodeAt(where))) {
+                Animal prey = (Animal) savanna.getObjectAt(where);
                 if(prey.isAlive()) {
-                    for(String s: preys) {
-                        if(prey.getName().equals(s)) {
-                            prey.setDead();
-                            setFoodValue(super.getMaxFoodValue());
-                            return where;
-                        }
-                    }
+                    prey.setDead();
+                    setFoodValue(super.getMaxFoodValue());
+                    return savanna.locationAt(where);
                 }
             }
         }
@@ -80,12 +63,13 @@ public abstract class Predator extends Animal
     protected void giveBirth(List<Animal> newAnimals)
     {
         // New cheetahs are born into adjacent locations.
-        // Get a list of adjacent free locations.
+        // Get the adjacent free cells, in a random order.
         SavannaAnimal savanna = getSavanna();
-        List<Location> free = savanna.getFreeAdjacentLocations(getLocation());
+        int[] adjacent = savanna.getScratch();
+        int free = savanna.freeAdjacentIndices(getLocation(), adjacent);
         int births = breed();
-        for(int b = 0; b < births && free.size() > 0; b++) {
-            Location loc = free.remove(0);
+        for(int b = 0; b < births && b < free; b++) {
+            Location loc = savanna.locationAt(adjacent[b]);
             Animal young = makeNewAnimal(savanna, loc);
             newAnimals.add(young);
         }
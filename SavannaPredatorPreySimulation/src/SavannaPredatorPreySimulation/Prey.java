@@ -1,7 +1,6 @@
 package SavannaPredatorPreySimulation;
 
 import java.util.List;
-import java.util.Iterator;
 
 /**
  * An abstract class representing shared characteristics of preys.
@@ -20,19 +19,12 @@ public abstract class Prey extends Animal
      * @param randomAge True if the animal borns with a random age.
      * @param savanna The savanna currently occupied.
      * @param location The location within the savanna.
-     * @param maxAge The animal's maximum age.
-     * @param maxFoodValue The animal's maximum food level.
-     * @param breedingAge The age at which the animal can start giving birth.
-     * @param maxLitterSize The maximum number of kids an animal can have when giving birth.
-     * @param breedingProbability The probability that an animal will give birth when meeting an opposite gender.
-     * @param name The name of the species of the animal.
-     * @param sleep The time at when the animal falls asleep.
-     * @param sleepAmount The number of hours the animal sleeps.
+     * @param traits The characteristics shared by the animal's species.
      * @param savannaPlant The savanna where the plants are.
      */
-    public Prey(boolean randomAge, SavannaAnimal savanna, Location location, int maxAge, int maxFoodValue, int breedingAge, int maxLitterSize, double breedingProbability, String name, int sleep, int sleepAmount, SavannaPlant savannaPlant)
+    public Prey(boolean randomAge, SavannaAnimal savanna, Location location, SpeciesTraits traits, SavannaPlant savannaPlant)
     {
-        super(randomAge, savanna, location, maxAge, maxFoodValue, breedingAge, maxLitterSize, breedingProbability, name, sleep, sleepAmount);
+        super(randomAge, savanna, location, traits);
         this.savannaPlant = savannaPlant;
     }
     
@@ -53,18 +45,14 @@ public abstract class Prey extends Animal
     protected Location findFood()
     {
         SavannaPlant savanna = getSavannaPlant();
-        List<Location> adjacent = savanna.adjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
-        while(it.hasNext()) {
-            Location where = it.next();
-            Object object = savanna.getObjectAt(where);
-            if(object instanceof Plant) {
-                Plant plant  = (Plant) object;
-                if(plant.isAlive()) {
-                    plant.setDead();
-                    setFoodValue(super.getMaxFoodValue());
-                    return where;
-                }
+        int[] adjacent = getSavanna().getScratch();
+        int count = savanna.adjacentIndices(getLocation(), adjacent);
+        for(int i = 0; i < count; i++) {
+            int where = adjacent[i];
+            if(savanna.isAlive(where)) {
+                savanna.clear(where);
+                setFoodValue(super.getMaxFoodValue());
+                return savanna.locationAt(where);
             }
         }
         return null;
@@ -86,13 +74,14 @@ public abstract class Prey extends Animal
     protected void giveBirth(List<Animal> newAnimals)
     {
         // New cheetahs are born into adjacent locations.
-        // Get a list of adjacent free locations.
+        // Get the adjacent free cells, in a random order.
         SavannaAnimal savanna = getSavanna();
         SavannaPlant savannaPlant = getSavannaPlant();
-        List<Location> free = savanna.getFreeAdjacentLocations(getLocation());
+        int[] adjacent = savanna.getScratch();
+        int free = savanna.freeAdjacentIndices(getLocation(), adjacent);
         int births = breed();
-        for(int b = 0; b < births && free.size() > 0; b++) {
-            Location loc = free.remove(0);
+        for(int b = 0; b < births && b < free; b++) {
+            Location loc = savanna.locationAt(adjacent[b]);
             Animal young = makeNewAnimal(savanna, loc, savannaPlant);
             newAnimals.add(young);
         }
@@ -6,18 +6,52 @@ import java.util.Random;
  * Provide control over the randomization of the simulation. By using the shared, fixed-seed 
  * randomizer, repeated runs will perform exactly the same (which helps with testing). Set 
  * 'useShared' to false to get different random behaviour every time.
+ *
+ * The kind of generator is pluggable. Java's Random is the default,
+ * so seeded runs stay as they were; XoshiroRandom is faster in a
+ * single thread but gives a different, equally repeatable, sequence.
+ * Choose the generator before creating a simulator, since simulators
+ * keep the generator they were given.
  * 
  * @author Dennis Kolley
  * @version 2021.03.01
  */
 public class Randomizer
 {
+    /**
+     * The kinds of random generator that can be provided.
+     */
+    public enum Generator
+    {
+        JDK {
+            Random create(long seed)
+            {
+                return new Random(seed);
+            }
+        },
+        XOSHIRO {
+            Random create(long seed)
+            {
+                return new XoshiroRandom(seed);
+            }
+        };
+
+        /**
+         * Create a generator of this kind.
+         * @param seed The seed.
+         * @return The new generator.
+         */
+        abstract Random create(long seed);
+    }
+
     // The default seed for control of randomization.
     private static final int SEED = 1111;
-    // A shared Random object, if required.
-    private static final Random rand = new Random(SEED);
     // Determine whether a shared random generator is to be provided.
     private static final boolean useShared = true;
+    // The kind of generator provided.
+    private static Generator generator = Generator.JDK;
+    // A shared Random object, if required.
+    private static Random rand = generator.create(SEED);
 
     /**
      * Constructor for objects of class Randomizer
@@ -36,9 +70,28 @@ public class Randomizer
             return rand;
         }
         else {
-            return new Random();
+            return generator.create(new Random().nextLong());
         }
     }
+
+    /**
+     * Change the kind of generator provided. The shared generator is
+     * replaced by a new one with the default seed.
+     * @param kind The kind of generator.
+     */
+    public static void setGenerator(Generator kind)
+    {
+        generator = kind;
+        rand = kind.create(SEED);
+    }
+
+    /**
+     * @return The kind of generator provided.
+     */
+    public static Generator getGenerator()
+    {
+        return generator;
+    }
     
     /**
      * Reset the randomization.
@@ -1,10 +1,16 @@
 package SavannaPredatorPreySimulation;
 
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Random;
 
 /**
  * Represent a rectangular grid of savanna positions.
  * Each position is able to store a single animal.
+ *
+ * The cells are kept in flat arrays indexed by int, so a savanna
+ * holds at most Integer.MAX_VALUE cells; larger dimensions are
+ * rejected rather than left to overflow the index.
  * 
  * @author Dennis Kolley
  * @version 2021.03.01
@@ -12,10 +18,14 @@ import java.util.Random;
 public abstract class Savanna
 {
     // A random number generator for providing random locations.
-    protected static final Random rand = Randomizer.getRandom();
+    protected final Random rand;
     
     // The depth and width of the savanna.
     protected int depth, width;
+    // The precomputed adjacency of the savanna's cells.
+    protected Neighbourhood neighbourhood;
+    // The single Location object for each cell, row by row.
+    protected Location[] locations;
     
     /**
      * Represent a savanna of the given dimensions.
@@ -24,10 +34,70 @@ public abstract class Savanna
      */
     public Savanna(int depth, int width)
     {
+        this(depth, width, Randomizer.getRandom());
+    }
+
+    /**
+     * Represent a savanna of the given dimensions, drawing its random
+     * numbers from the given generator.
+     * @param depth The depth of the savanna.
+     * @param width The width of the savanna.
+     * @param rand The random generator for the savanna.
+     */
+    public Savanna(int depth, int width, Random rand)
+    {
+        checkSize(depth, width);
+        this.rand = rand;
         this.depth = depth;
         this.width = width;
+        neighbourhood = new Neighbourhood(depth, width);
+        locations = new Location[depth * width];
+        for(int row = 0; row < depth; row++) {
+            for(int col = 0; col < width; col++) {
+                locations[row * width + col] = new Location(row, col);
+            }
+        }
     }
     
+    /**
+     * Check that a savanna of the given dimensions can be indexed by
+     * an int.
+     * @param depth The depth of the savanna.
+     * @param width The width of the savanna.
+     * @throws IllegalArgumentException If it has more than Integer.MAX_VALUE cells.
+     */
+    static void checkSize(int depth, int width)
+    {
+        if((long) depth * width > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A savanna of " + depth + " by " + width + " has more than " + Integer.MAX_VALUE + " cells.");
+        }
+    }
+
+    /**
+     * Represent a savanna covering the same cells as another one.
+     * The adjacency and location tables are shared rather than
+     * built again.
+     * @param other The savanna whose cells are shared.
+     */
+    public Savanna(Savanna other)
+    {
+        rand = other.rand;
+        depth = other.depth;
+        width = other.width;
+        neighbourhood = other.neighbourhood;
+        locations = other.locations;
+    }
+    
+    /**
+     * Return the random generator of the savanna, which the things
+     * living in it also draw from.
+     * @return The random generator.
+     */
+    public Random getRandom()
+    {
+        return rand;
+    }
+
     /**
      * Empty the savanna.
      */
@@ -39,6 +109,12 @@ public abstract class Savanna
      */
     abstract public void clear(Location location);
     
+    /**
+     * Clear the cell with the given index.
+     * @param index The index of the cell to clear.
+     */
+    abstract public void clear(int index);
+    
     /**
      * Place an animal at the given location.
      * If there is already an animal at the location it will
@@ -58,6 +134,15 @@ public abstract class Savanna
      */
     abstract public void place(Object animal, Location location);
     
+    /**
+     * Place an animal in the cell with the given index.
+     * If there is already an animal in the cell it will
+     * be lost.
+     * @param animal The animal to be placed.
+     * @param index The index of the cell.
+     */
+    abstract public void place(Object animal, int index);
+    
     /**
      * Return the animal at the given location, if any.
      * @param location Where in the savanna.
@@ -72,6 +157,104 @@ public abstract class Savanna
      * @return The animal at the given location, or null if there is none.
      */
     abstract public Object getObjectAt(int row, int col);
+    
+    /**
+     * Return the animal in the cell with the given index, if any.
+     * @param index The index of the cell.
+     * @return The animal in the cell, or null if there is none.
+     */
+    abstract public Object getObjectAt(int index);
+
+    /**
+     * Return the index of a location in the savanna's flat,
+     * row-major storage.
+     * @param location The location in the savanna.
+     * @return The index of the location.
+     */
+    public int indexOf(Location location)
+    {
+        return location.getRow() * width + location.getCol();
+    }
+
+    /**
+     * Return the index of a cell in the savanna's flat storage.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The index of the cell.
+     */
+    public int indexOf(int row, int col)
+    {
+        return row * width + col;
+    }
+    
+    /**
+     * Return the location with the given index. There is exactly
+     * one Location object per cell, so nothing is allocated.
+     * @param index The index of a cell in the savanna.
+     * @return The location of that cell.
+     */
+    public Location locationAt(int index)
+    {
+        return locations[index];
+    }
+    
+    /**
+     * Return the location at the given row and column. There is
+     * exactly one Location object per cell, so nothing is allocated.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The location of that cell.
+     */
+    public Location locationAt(int row, int col)
+    {
+        return locations[row * width + col];
+    }
+    
+    /**
+     * Write the indices of the cells adjacent to the given location
+     * into a buffer, in a random order. Nothing is allocated, so
+     * this is the form to use on the simulation's hot path.
+     * @param location The location from which to generate adjacencies.
+     * @param buffer Receives the indices; must hold Neighbourhood.MAX_NEIGHBOURS values.
+     * @return The number of indices written.
+     */
+    public int adjacentIndices(Location location, int[] buffer)
+    {
+        return neighbourhood.shuffledNeighbours(location.getRow(), location.getCol(), buffer, rand);
+    }
+    
+    /**
+     * Visit the cells adjacent to the given location in a fixed order.
+     * @param location The location whose neighbours are visited.
+     * @param visitor Called with the index of each neighbour; returns false to stop.
+     * @return true if every neighbour was visited.
+     */
+    public boolean forEachNeighbour(Location location, NeighbourVisitor visitor)
+    {
+        return neighbourhood.forEachNeighbour(location.getRow(), location.getCol(), visitor);
+    }
+    
+    /**
+     * Return a shuffled list of locations adjacent to the given one.
+     * The list will not include the location itself.
+     * All locations will lie within the grid.
+     * @param location The location from which to generate adjacencies.
+     * @return A list of locations adjacent to that given.
+     */
+    public List<Location> adjacentLocations(Location location)
+    {
+        assert location != null : "Null location passed to adjacentLocations";
+        // The list of locations to be returned.
+        List<Location> locations = new LinkedList<>();
+        if(location != null) {
+            int[] adjacent = new int[Neighbourhood.MAX_NEIGHBOURS];
+            int count = adjacentIndices(location, adjacent);
+            for(int i = 0; i < count; i++) {
+                locations.add(locationAt(adjacent[i]));
+            }
+        }
+        return locations;
+    }
 
     /**
      * Return the depth of the savanna.
@@ -1,8 +1,9 @@
 package SavannaPredatorPreySimulation;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Represent a rectangular grid of savanna positions.
@@ -13,8 +14,18 @@ import java.util.List;
  */
 public class SavannaAnimal extends Savanna
 {
-    // Storage for the animals.
-    private Object[][] savanna;
+    // Flat storage for the animals.
+    private FlatGrid grid;
+    // Scratch space for neighbour indices.
+    private final int[] adjacent;
+    // Scratch space for neighbour indices lent to the animals.
+    private final int[] scratch;
+    // The number of steps each species has been awake for, indexed by id.
+    private final int[] clocks;
+    // The cells placed or cleared since the dirty cells were last taken, one bit per cell.
+    private final long[] dirty;
+    // The number of animals of each species on the savanna.
+    private final SavannaStats stats;
 
     /**
      * Constructor for objects of class SavannaAnimal.
@@ -23,20 +34,99 @@ public class SavannaAnimal extends Savanna
      */
     public SavannaAnimal(int depth, int width)
     {
-        super(depth, width);
-        savanna = new Object[depth][width];
+        this(depth, width, Randomizer.getRandom());
+    }
+
+    /**
+     * Create a savanna drawing its random numbers from the given
+     * generator, so that it shares nothing with other savannas.
+     * @param depth The depth of the savanna.
+     * @param width The width of the savanna.
+     * @param rand The random generator for the savanna and its animals.
+     */
+    public SavannaAnimal(int depth, int width, Random rand)
+    {
+        super(depth, width, rand);
+        grid = new FlatGrid(depth, width);
+        adjacent = new int[Neighbourhood.MAX_NEIGHBOURS];
+        scratch = new int[Neighbourhood.MAX_NEIGHBOURS];
+        clocks = new int[Species.getIdCount()];
+        dirty = new long[(depth * width + 63) >>> 6];
+        stats = new SavannaStats();
     }
     
     /**
-     * Empty the savanna.
+     * Empty the savanna, set every species' clock back to zero and
+     * reset the counts of the animals.
      */
     public void clear()
     {
-        for(int row = 0; row < depth; row++) {
-            for(int col = 0; col < width; col++) {
-                savanna[row][col] = null;
-            }
-        }
+        grid.clear();
+        Arrays.fill(clocks, 0);
+        Arrays.fill(dirty, -1L);
+        stats.reset();
+    }
+
+    /**
+     * Return the counts of the animals on the savanna, which are kept
+     * up to date as animals are placed and cleared.
+     * @return The statistics of the savanna.
+     */
+    public SavannaStats getStats()
+    {
+        return stats;
+    }
+
+    /**
+     * Copy the set of cells placed or cleared since the last call
+     * into a bitmap, one bit per cell, and start a new set. A cell
+     * may be in the set without its contents having changed.
+     * @param into The bitmap to copy into, at least (depth * width + 63) / 64 longs.
+     */
+    public void takeDirtyCells(long[] into)
+    {
+        System.arraycopy(dirty, 0, into, 0, dirty.length);
+        Arrays.fill(dirty, 0);
+    }
+
+    /**
+     * Record that a cell has been placed or cleared.
+     * @param index The index of the cell.
+     */
+    private void markDirty(int index)
+    {
+        dirty[index >>> 6] |= 1L << index;
+    }
+    
+    /**
+     * Return scratch space for the indices of neighbouring cells.
+     * The animals of a savanna act one at a time, so they can all
+     * share it.
+     * @return A buffer of Neighbourhood.MAX_NEIGHBOURS ints.
+     */
+    public int[] getScratch()
+    {
+        return scratch;
+    }
+
+    /**
+     * Count one more awake step for a species. Animals only age and
+     * get hungry while awake, so their timers run on this clock.
+     * @param speciesId The id of the species.
+     */
+    public void advanceClock(int speciesId)
+    {
+        clocks[speciesId]++;
+    }
+    
+    /**
+     * Return the number of steps a species has been awake for.
+     * @param speciesId The id of the species.
+     * @return The species' awake step count.
+     */
+    public int getClock(int speciesId)
+    {
+        return clocks[speciesId];
     }
     
     /**
@@ -45,7 +135,18 @@ public class SavannaAnimal extends Savanna
      */
     public void clear(Location location)
     {
-        savanna[location.getRow()][location.getCol()] = null;
+        clear(indexOf(location));
+    }
+    
+    /**
+     * Clear the cell with the given index.
+     * @param index The index of the cell to clear.
+     */
+    public void clear(int index)
+    {
+        uncount(index);
+        grid.clear(index);
+        markDirty(index);
     }
     
     /**
@@ -58,7 +159,7 @@ public class SavannaAnimal extends Savanna
      */
     public void place(Object animal, int row, int col)
     {
-        place(animal, new Location(row, col));
+        place(animal, indexOf(row, col));
     }
     
     /**
@@ -70,7 +171,42 @@ public class SavannaAnimal extends Savanna
      */
     public void place(Object animal, Location location)
     {
-        savanna[location.getRow()][location.getCol()] = animal;
+        place(animal, indexOf(location));
+    }
+    
+    /**
+     * Place an animal in the cell with the given index.
+     * If there is already an animal in the cell it will
+     * be lost.
+     * @param animal The animal to be placed.
+     * @param index The index of the cell.
+     */
+    public void place(Object animal, int index)
+    {
+        uncount(index);
+        if(animal == null) {
+            grid.clear(index);
+        } else {
+            short code = codeOf(animal);
+            grid.set(animal, code, index);
+            if(code != FlatGrid.EMPTY) {
+                stats.incrementCount(code >> 1);
+            }
+        }
+        markDirty(index);
+    }
+
+    /**
+     * Take the occupant of a cell, if any, off the count of its
+     * species, before the cell is cleared or overwritten.
+     * @param index The index of the cell.
+     */
+    private void uncount(int index)
+    {
+        short code = grid.getCode(index);
+        if(code != FlatGrid.EMPTY) {
+            stats.decrementCount(code >> 1);
+        }
     }
     
     /**
@@ -80,7 +216,7 @@ public class SavannaAnimal extends Savanna
      */
     public Object getObjectAt(Location location)
     {
-        return getObjectAt(location.getRow(), location.getCol());
+        return grid.get(indexOf(location));
     }
     
     /**
@@ -91,7 +227,68 @@ public class SavannaAnimal extends Savanna
      */
     public Object getObjectAt(int row, int col)
     {
-        return savanna[row][col];
+        return grid.get(indexOf(row, col));
+    }
+    
+    /**
+     * Return the animal in the cell with the given index, if any.
+     * @param index The index of the cell.
+     * @return The animal in the cell, or null if there is none.
+     */
+    public Object getObjectAt(int index)
+    {
+        return grid.get(index);
+    }
+    
+    /**
+     * Return the species code of the animal at the given location.
+     * Comparing codes avoids fetching and inspecting the animal.
+     * @param location Where in the savanna.
+     * @return The code of the animal there, or FlatGrid.EMPTY.
+     */
+    public short getCodeAt(Location location)
+    {
+        return grid.getCode(indexOf(location));
+    }
+    
+    /**
+     * Return the species code of the animal in the given cell.
+     * @param index The index of the cell.
+     * @return The code of the animal there, or FlatGrid.EMPTY.
+     */
+    public short getCodeAt(int index)
+    {
+        return grid.getCode(index);
+    }
+
+    /**
+     * Copy the code of every cell into an array, row by row.
+     * @param into The array to copy into, at least depth * width long.
+     */
+    public void copyCodes(short[] into)
+    {
+        grid.copyCodes(into);
+    }
+
+    /**
+     * Copy the code of the cells in a bitmap into an array, each to
+     * the same index.
+     * @param into The array to copy into, at least depth * width long.
+     * @param cells The cells to copy, one bit per cell, as given by takeDirtyCells.
+     */
+    public void copyCodes(short[] into, long[] cells)
+    {
+        grid.copyCodes(into, cells);
+    }
+    
+    /**
+     * Return the grid code used for the given animal.
+     * @param animal The animal whose code is wanted.
+     * @return The animal's species and sex, packed by Species.codeOf.
+     */
+    public short codeOf(Object animal)
+    {
+        return ((Animal) animal).getCode();
     }
     
     /**
@@ -104,8 +301,8 @@ public class SavannaAnimal extends Savanna
      */
     public Location randomAdjacentLocation(Location location)
     {
-        List<Location> adjacent = adjacentLocations(location);
-        return adjacent.get(0);
+        adjacentIndices(location, adjacent);
+        return locationAt(adjacent[0]);
     }
     
     /**
@@ -116,10 +313,27 @@ public class SavannaAnimal extends Savanna
     public List<Location> getFreeAdjacentLocations(Location location)
     {
         List<Location> free = new LinkedList<>();
-        List<Location> adjacent = adjacentLocations(location);
-        for(Location next : adjacent) {
-            if(getObjectAt(next) == null) {
-                free.add(next);
+        int count = freeAdjacentIndices(location, adjacent);
+        for(int i = 0; i < count; i++) {
+            free.add(locationAt(adjacent[i]));
+        }
+        return free;
+    }
+    
+    /**
+     * Write the indices of the free cells adjacent to the given
+     * location into a buffer, in a random order.
+     * @param location Get locations adjacent to this.
+     * @param buffer Receives the indices; must hold Neighbourhood.MAX_NEIGHBOURS values.
+     * @return The number of free cells found.
+     */
+    public int freeAdjacentIndices(Location location, int[] buffer)
+    {
+        int count = adjacentIndices(location, buffer);
+        int free = 0;
+        for(int i = 0; i < count; i++) {
+            if(grid.getCode(buffer[i]) == FlatGrid.EMPTY) {
+                buffer[free++] = buffer[i];
             }
         }
         return free;
@@ -136,48 +350,12 @@ public class SavannaAnimal extends Savanna
     public Location freeAdjacentLocation(Location location)
     {
         // The available free ones.
-        List<Location> free = getFreeAdjacentLocations(location);
-        if(free.size() > 0) {
-            return free.get(0);
+        int count = freeAdjacentIndices(location, adjacent);
+        if(count > 0) {
+            return locationAt(adjacent[0]);
         }
         else {
             return null;
         }
     }
-
-    /**
-     * Return a shuffled list of locations adjacent to the given one.
-     * The list will not include the location itself.
-     * All locations will lie within the grid.
-     * @param location The location from which to generate adjacencies.
-     * @return A list of locations adjacent to that given.
-     */
-    public List<Location> adjacentLocations(Location location)
-    {
-        assert location != null : "Null location passed to adjacentLocations";
-        // The list of locations to be returned.
-        List<Location> locations = new LinkedList<>();
-        if(location != null) {
-            int row = location.getRow();
-            int col = location.getCol();
-            for(int roffset = -1; roffset <= 1; roffset++) {
-                int nextRow = row + roffset;
-                if(nextRow >= 0 && nextRow < depth) {
-                    for(int coffset = -1; coffset <= 1; coffset++) {
-                        int nextCol = col + coffset;
-                        // Exclude invalid locations and the original location.
-                        if(nextCol >= 0 && nextCol < width && (roffset != 0 || coffset != 0)) {
-                            locations.add(new Location(nextRow, nextCol));
-                        }
-                    }
-                }
-            }
-            
-            // Shuffle the list. Several other methods rely on the list
-            // being in a random order.
-            Collections.shuffle(locations, rand);
-        }
-        return locations;
-    }
 }
-
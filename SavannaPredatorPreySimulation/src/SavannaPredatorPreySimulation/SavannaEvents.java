@@ -0,0 +1,208 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.Random;
+
+/**
+ * The weather and disease events of a savanna. Every so many steps
+ * an event may start; it then lasts for its own duration. Keeping
+ * the events apart from the simulator lets every simulation engine
+ * share the same rules.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class SavannaEvents
+{
+    // The frequency of the event happenning.
+    static final int WEATHER_PER_STEP = 20;
+    static final int DISEASE_PER_STEP = 69;
+
+    // The fields for the weather event.
+    private Weather rain;
+    private Weather drought;
+    private Weather currentWeather;
+    private boolean isWeather;
+    private int weatherStartStep;
+    // The fields for the disease event.
+    private Disease currentDisease;
+    private Disease blackDeath;
+    private int diseaseStartStep;
+    private boolean isDisease;
+    // A randomizer for the events.
+    private Random rand;
+
+    /**
+     * Create the events of a savanna, with none under way.
+     */
+    public SavannaEvents()
+    {
+        this(Randomizer.getRandom());
+    }
+
+    /**
+     * Create the events of a savanna, with none under way, drawing
+     * their random numbers from the given generator.
+     * @param rand The random generator for the events.
+     */
+    public SavannaEvents(Random rand)
+    {
+        this.rand = rand;
+        rain = new Rain();
+        drought = new Drought();
+        blackDeath = new BlackDeath();
+        reset();
+    }
+
+    /**
+     * End any event under way.
+     */
+    public void reset()
+    {
+        isWeather = false;
+        isDisease = false;
+    }
+
+    /**
+     * Start or end events as the simulation reaches a new step.
+     * @param step The step the simulation has reached.
+     */
+    public void update(int step)
+    {
+        if(step % WEATHER_PER_STEP == 0) {
+            startWeather(step);
+        }
+        expireWeather(step);
+        if(step % DISEASE_PER_STEP == 0) {
+            startDisease(step);
+        }
+        expireDisease(step);
+    }
+
+    /**
+     * Generate weather event. Called every WEATHER_PER_STEP steps.
+     * @param step The step the simulation has reached.
+     */
+    public void startWeather(int step)
+    {
+        weatherStartStep = step;
+        if(rand.nextDouble() <= rain.getProbability()) {
+            isWeather = true;
+            currentWeather = rain;
+        } else if(rand.nextDouble() <= drought.getProbability()) {
+            isWeather = true;
+            currentWeather = drought;
+        }
+    }
+
+    /**
+     * End the weather if it has run its course.
+     * @param step The step the simulation has reached.
+     */
+    public void expireWeather(int step)
+    {
+        if(isWeather) {
+            if(getWeatherEnd() <= step) {
+                isWeather = false;
+            }
+        }
+    }
+
+    /**
+     * Generate disease event. Called every DISEASE_PER_STEP steps.
+     * @param step The step the simulation has reached.
+     */
+    public void startDisease(int step)
+    {
+        diseaseStartStep = step;
+        if(rand.nextDouble() <= blackDeath.getProbability()) {
+            isDisease = true;
+            currentDisease = blackDeath;
+        }
+    }
+
+    /**
+     * End the disease if it has run its course.
+     * @param step The step the simulation has reached.
+     */
+    public void expireDisease(int step)
+    {
+        if(isDisease) {
+            if(getDiseaseEnd() <= step) {
+                isDisease = false;
+            }
+        }
+    }
+
+    /**
+     * @return The step at which the current weather runs out.
+     */
+    public int getWeatherEnd()
+    {
+        return weatherStartStep + currentWeather.getDuration();
+    }
+
+    /**
+     * @return The step at which the current disease runs out.
+     */
+    public int getDiseaseEnd()
+    {
+        return diseaseStartStep + currentDisease.getDuration();
+    }
+
+    /**
+     * @return true if a weather event is under way.
+     */
+    public boolean isWeather()
+    {
+        return isWeather;
+    }
+
+    /**
+     * @return The name of the current weather, or "" if there is none.
+     */
+    public String getWeatherName()
+    {
+        return isWeather ? currentWeather.getName() : "";
+    }
+
+    /**
+     * Return how much dead grass grows this step.
+     * @return The current weather's growth change, or 1 if there is no weather.
+     */
+    public double getGrowthChange()
+    {
+        return isWeather ? currentWeather.getGrowthChange() : 1;
+    }
+
+    /**
+     * @return true if a disease event is under way.
+     */
+    public boolean isDisease()
+    {
+        return isDisease;
+    }
+
+    /**
+     * @return The name of the current disease, or "" if there is none.
+     */
+    public String getDiseaseName()
+    {
+        return isDisease ? currentDisease.getName() : "";
+    }
+
+    /**
+     * @return The lethality of the current disease, or 1 if there is none.
+     */
+    public int getLethality()
+    {
+        return isDisease ? currentDisease.getDiseaseLethality() : 1;
+    }
+
+    /**
+     * @return The infection rate of the current disease, or 1 if there is none.
+     */
+    public double getInfectionRate()
+    {
+        return isDisease ? currentDisease.getInfectionRate() : 1;
+    }
+}
@@ -1,20 +1,48 @@
 package SavannaPredatorPreySimulation;
 
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Random;
 
 /**
- * Represent a rectangular grid of savanna positions.
- * Each position is able to store a single animal.
+ * Represent a rectangular grid of grass.
+ * Rather than a Grass object per cell, the layer keeps a bitset
+ * of the cells whose grass is alive. Dead grass waits in a regrowth
+ * queue, so a step only touches the cells that have been grazed.
+ * 
+ * All dead grass grows by the same amount each step, whatever the
+ * weather, so the layer keeps a single growth clock that advances
+ * by the weather's growth ratio. Grass eaten when the clock reads c
+ * comes back when it reaches c plus the regrowth value. Since every
+ * cell waits the same amount, cells leave the queue in the order
+ * they joined it, and a change of weather needs no rescheduling.
  *
  * @author Dennis Kolley
  * @version 2021.03.01
  */
 public class SavannaPlant extends Savanna
 {
-    // Storage for the plants.
-    private Object[][] savanna;
+    // Regrowth is counted in hundredths so weather ratios stay exact.
+    private static final int GROWTH_SCALE = 100;
+    // The regrowth count at which dead grass comes back to life.
+    private static final int REGROWN = (Grass.REGROWTH_VALUE + 1) * GROWTH_SCALE;
+    
+    // The initial capacity of the regrowth queue.
+    private static final int INITIAL_QUEUE_SIZE = 64;
+    // Atomic access to the words of the bitset, for grazers on several threads.
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    
+    // One bit per cell, set while the cell's grass is alive.
+    private long[] alive;
+    // The total growth so far, in hundredths.
+    private long growthClock;
+    // The cells of dead grass, in the order they died.
+    private int[] queueCells;
+    // The growth clock reading at which each queued cell regrows.
+    private long[] queueDue;
+    // The position of the oldest entry and the number of entries.
+    private int queueHead, queueSize;
 
     /**
      * Constructor for objects of class SavannaPlant.
@@ -24,18 +52,77 @@ public class SavannaPlant extends Savanna
     public SavannaPlant(int depth, int width)
     {
         super(depth, width);
-        savanna = new Object[depth][width];
+        createLayer();
+    }
+
+    /**
+     * Create a plant savanna that draws its random numbers from the
+     * given generator.
+     * @param depth The depth of the savanna.
+     * @param width The width of the savanna.
+     * @param rand The random generator for the savanna.
+     */
+    public SavannaPlant(int depth, int width, Random rand)
+    {
+        super(depth, width, rand);
+        createLayer();
+    }
+    
+    /**
+     * Create a plant savanna covering the same cells as another
+     * savanna, sharing its location table.
+     * @param savanna The savanna whose cells are covered.
+     */
+    public SavannaPlant(Savanna savanna)
+    {
+        super(savanna);
+        createLayer();
+    }
+    
+    /**
+     * Allocate the bitset and the regrowth counters.
+     */
+    private void createLayer()
+    {
+        alive = new long[(depth * width + 63) >>> 6];
+        queueCells = new int[INITIAL_QUEUE_SIZE];
+        queueDue = new long[INITIAL_QUEUE_SIZE];
+        clear();
     }
     
     /**
-     * Empty the savanna.
+     * Empty the savanna. Every cell is left bare, with no grass
+     * to regrow.
      */
     public void clear()
     {
-        for(int row = 0; row < depth; row++) {
-            for(int col = 0; col < width; col++) {
-                savanna[row][col] = null;
-            }
+        Arrays.fill(alive, 0);
+        markPadding();
+        growthClock = 0;
+        queueHead = 0;
+        queueSize = 0;
+    }
+    
+    /**
+     * Cover every cell of the savanna with living grass.
+     */
+    public void growAll()
+    {
+        Arrays.fill(alive, -1L);
+        growthClock = 0;
+        queueHead = 0;
+        queueSize = 0;
+    }
+    
+    /**
+     * The bits past the last cell are kept set, so that they look
+     * like living grass and are never grown.
+     */
+    private void markPadding()
+    {
+        int cells = depth * width;
+        if((cells & 63) != 0) {
+            alive[alive.length - 1] |= -1L << (cells & 63);
         }
     }
     
@@ -45,7 +132,52 @@ public class SavannaPlant extends Savanna
      */
     public void clear(Location location)
     {
-        savanna[location.getRow()][location.getCol()] = null;
+        clear(indexOf(location));
+    }
+    
+    /**
+     * Kill the grass in the cell with the given index and queue
+     * it to regrow. Grass that is already dead keeps its place
+     * in the queue.
+     * @param index The index of the cell to clear.
+     */
+    public void clear(int index)
+    {
+        if(isAlive(index)) {
+            alive[index >>> 6] &= ~(1L << index);
+            enqueue(index, growthClock + REGROWN);
+        }
+    }
+    
+    /**
+     * Kill the grass in a cell without queueing it to regrow.
+     * Threads may call this at the same time for different cells,
+     * even cells whose bits share a word. Each cell eaten must then
+     * be passed to queueRegrowth by a single thread.
+     * @param index The index of the cell.
+     * @return true if the grass was alive and has been eaten.
+     */
+    public boolean eat(int index)
+    {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        long old;
+        do {
+            old = (long) WORDS.getVolatile(alive, word);
+            if((old & bit) == 0) {
+                return false;
+            }
+        } while(!WORDS.compareAndSet(alive, word, old, old & ~bit));
+        return true;
+    }
+    
+    /**
+     * Queue a cell whose grass was eaten to regrow.
+     * @param index The index of the cell.
+     */
+    public void queueRegrowth(int index)
+    {
+        enqueue(index, growthClock + REGROWN);
     }
     
     /**
@@ -58,7 +190,7 @@ public class SavannaPlant extends Savanna
      */
     public void place(Object plant, int row, int col)
     {
-        place(plant, new Location(row, col));
+        place(plant, indexOf(row, col));
     }
     
     /**
@@ -70,7 +202,24 @@ public class SavannaPlant extends Savanna
      */
     public void place(Object plant, Location location)
     {
-        savanna[location.getRow()][location.getCol()] = plant;
+        place(plant, indexOf(location));
+    }
+    
+    /**
+     * Place a plant in the cell with the given index. Any plant
+     * brings the cell's grass to life; null kills it.
+     * @param plant The plant to be placed.
+     * @param index The index of the cell.
+     */
+    public void place(Object plant, int index)
+    {
+        if(plant == null) {
+            clear(index);
+        } else if(!isAlive(index)) {
+            alive[index >>> 6] |= 1L << index;
+            // Rarely used, so a scan of the queue is good enough.
+            removeFromQueue(index);
+        }
     }
     
     /**
@@ -80,7 +229,7 @@ public class SavannaPlant extends Savanna
      */
     public Object getObjectAt(Location location)
     {
-        return getObjectAt(location.getRow(), location.getCol());
+        return getObjectAt(indexOf(location));
     }
     
     /**
@@ -91,41 +240,108 @@ public class SavannaPlant extends Savanna
      */
     public Object getObjectAt(int row, int col)
     {
-        return savanna[row][col];
-    }
-    
-    /**
-     * Return a shuffled list of locations adjacent to the given one.
-     * The list will not include the location itself.
-     * All locations will lie within the grid.
-     * @param location The location from which to generate adjacencies.
-     * @return A list of locations adjacent to that given.
-     */
-    public List<Location> adjacentLocations(Location location)
-    {
-        assert location != null : "Null location passed to adjacentLocations";
-        // The list of locations to be returned.
-        List<Location> locations = new LinkedList<>();
-        if(location != null) {
-            int row = location.getRow();
-            int col = location.getCol();
-            for(int roffset = -1; roffset <= 1; roffset++) {
-                int nextRow = row + roffset;
-                if(nextRow >= 0 && nextRow < depth) {
-                    for(int coffset = -1; coffset <= 1; coffset++) {
-                        int nextCol = col + coffset;
-                        // Exclude invalid locations and the original location.
-                        if(nextCol >= 0 && nextCol < width && (roffset != 0 || coffset != 0)) {
-                            locations.add(new Location(nextRow, nextCol));
-                        }
-                    }
-                }
+        return getObjectAt(indexOf(row, col));
+    }
+    
+    /**
+     * Return the living grass in the cell with the given index, if any.
+     * @param index The index of the cell.
+     * @return Grass.GRASS if the cell's grass is alive, otherwise null.
+     */
+    public Object getObjectAt(int index)
+    {
+        return isAlive(index) ? Grass.GRASS : null;
+    }
+    
+    /**
+     * Return whether the grass in a cell is alive.
+     * @param index The index of the cell.
+     * @return true if the cell's grass is alive.
+     */
+    public boolean isAlive(int index)
+    {
+        return (alive[index >>> 6] & (1L << index)) != 0;
+    }
+    
+    /**
+     * Let all the dead grass grow for one step. Only the cells
+     * whose regrowth is due are touched.
+     * @param weatherChangeRatio How much the dead grass grows this step.
+     */
+    public void grow(double weatherChangeRatio)
+    {
+        growthClock += Math.round(weatherChangeRatio * GROWTH_SCALE);
+        while(queueSize > 0 && queueDue[queueHead] <= growthClock) {
+            int index = queueCells[queueHead];
+            alive[index >>> 6] |= 1L << index;
+            queueHead = (queueHead + 1) % queueCells.length;
+            queueSize--;
+        }
+    }
+    
+    /**
+     * Return the number of cells of dead grass waiting to regrow.
+     * @return The number of cells of dead grass.
+     */
+    public int getDeadCount()
+    {
+        return queueSize;
+    }
+    
+    /**
+     * Add a cell to the back of the regrowth queue.
+     * @param index The index of the cell.
+     * @param due The growth clock reading at which it regrows.
+     */
+    private void enqueue(int index, long due)
+    {
+        if(queueSize == queueCells.length) {
+            growQueue();
+        }
+        int tail = (queueHead + queueSize) % queueCells.length;
+        queueCells[tail] = index;
+        queueDue[tail] = due;
+        queueSize++;
+    }
+    
+    /**
+     * Double the capacity of the regrowth queue, keeping its order.
+     */
+    private void growQueue()
+    {
+        int[] cells = new int[queueCells.length * 2];
+        long[] due = new long[queueCells.length * 2];
+        for(int i = 0; i < queueSize; i++) {
+            int from = (queueHead + i) % queueCells.length;
+            cells[i] = queueCells[from];
+            due[i] = queueDue[from];
+        }
+        queueCells = cells;
+        queueDue = due;
+        queueHead = 0;
+    }
+    
+    /**
+     * Take a cell out of the regrowth queue, keeping the order
+     * of the others.
+     * @param index The index of the cell.
+     */
+    private void removeFromQueue(int index)
+    {
+        int found = -1;
+        for(int i = 0; i < queueSize && found < 0; i++) {
+            if(queueCells[(queueHead + i) % queueCells.length] == index) {
+                found = i;
+            }
+        }
+        if(found >= 0) {
+            for(int i = found; i < queueSize - 1; i++) {
+                int to = (queueHead + i) % queueCells.length;
+                int from = (queueHead + i + 1) % queueCells.length;
+                queueCells[to] = queueCells[from];
+                queueDue[to] = queueDue[from];
             }
-            
-            // Shuffle the list. Several other methods rely on the list
-            // being in a random order.
-            Collections.shuffle(locations, rand);
+            queueSize--;
         }
-        return locations;
     }
-}
\ No newline at end of file
+}
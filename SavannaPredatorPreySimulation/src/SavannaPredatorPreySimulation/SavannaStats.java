@@ -1,89 +1,94 @@
 package SavannaPredatorPreySimulation;
 
-import java.awt.Color;
-import java.util.HashMap;
-
 /**
  * This class collects and provides some statistical data on the state 
- * of a savanna. It is flexible: it will create and maintain a counter 
- * for any class of object that is found within the savanna.
+ * of a savanna: the number of animals of each species on it.
+ *
+ * The counts are kept up to date by the savanna as animals are placed
+ * and cleared, which covers every birth, death and move, rather than
+ * by counting the savanna's grid. Reading them costs no more than the
+ * number of species however big the savanna is. They are indexed by
+ * species id; id 0, which stands for an empty cell, is never counted.
  * 
  * @author Dennis Kolley
  * @version 2021.03.01
  */
 public class SavannaStats
 {
-    // Counters for each type of entity (fox, rabbit, etc.) in the simulation.
-    private HashMap<Class, Counter> counters;
-    // Whether the counters are currently up to date.
-    private boolean countsValid;
+    // The number of animals of each species, indexed by species id.
+    private final long[] counts;
 
     /**
-     * Construct a savannaStats object.
+     * Construct a savannaStats object with every count at zero.
      */
     public SavannaStats()
     {
-        // Set up a collection for counters for each type of animal that
-        // we might find
-        counters = new HashMap<>();
-        countsValid = true;
+        counts = new long[Species.getIdCount()];
     }
 
     /**
      * Get details of what is in the savanna.
      * @return A string describing what is in the savanna.
      */
-    public String getPopulationDetails(Savanna savanna)
+    public String getPopulationDetails()
     {
-        StringBuffer buffer = new StringBuffer();
-        if(!countsValid) {
-            generateCounts(savanna);
-        }
-        for(Class key : counters.keySet()) {
-            Counter info = counters.get(key);
-            buffer.append(info.getName());
+        StringBuilder buffer = new StringBuilder();
+        for(int id = 1; id < counts.length; id++) {
+            buffer.append(Species.byId(id).getName());
             buffer.append(": ");
-            buffer.append(info.getCount());
+            buffer.append(counts[id]);
             buffer.append(' ');
         }
         return buffer.toString();
     }
     
     /**
-     * Invalidate the current set of statistics; reset all 
-     * counts to zero.
+     * Reset all counts to zero.
      */
     public void reset()
     {
-        countsValid = false;
-        for(Class key : counters.keySet()) {
-            Counter count = counters.get(key);
-            count.reset();
+        for(int id = 0; id < counts.length; id++) {
+            counts[id] = 0;
         }
     }
 
     /**
-     * Increment the count for one class of animal.
-     * @param animalClass The class of animal to increment.
+     * Count an animal placed on the savanna.
+     * @param speciesId The id of the animal's species.
      */
-    public void incrementCount(Class animalClass)
+    public void incrementCount(int speciesId)
     {
-        Counter count = counters.get(animalClass);
-        if(count == null) {
-            // We do not have a counter for this species yet.
-            // Create one.
-            count = new Counter(animalClass.getName());
-            counters.put(animalClass, count);
-        }
-        count.increment();
+        counts[speciesId]++;
+    }
+
+    /**
+     * Count an animal cleared from the savanna.
+     * @param speciesId The id of the animal's species.
+     */
+    public void decrementCount(int speciesId)
+    {
+        counts[speciesId]--;
     }
 
     /**
-     * Indicate that an animal count has been completed.
+     * Return the number of animals of a species.
+     * @param speciesId The id of the species.
+     * @return The number of animals of that species.
      */
-    public void countFinished()
+    public long getCount(int speciesId)
     {
-        countsValid = true;
+        return counts[speciesId];
+    }
+
+    /**
+     * Copy the count of every species into an array.
+     * @param into The array to copy into, indexed by species id.
+     */
+    public void copyCounts(int[] into)
+    {
+        for(int id = 0; id < counts.length; id++) {
+            into[id] = (int) counts[id];
+        }
     }
 
     /**
@@ -91,41 +96,15 @@ public class SavannaStats
      * I.e., should it continue to run.
      * @return true If there is more than one species alive.
      */
-    public boolean isViable(Savanna savanna)
+    public boolean isViable()
     {
         // How many counts are non-zero.
         int nonZero = 0;
-        if(!countsValid) {
-            generateCounts(savanna);
-        }
-        for(Class key : counters.keySet()) {
-            Counter info = counters.get(key);
-            if(info.getCount() > 0) {
+        for(int id = 1; id < counts.length; id++) {
+            if(counts[id] > 0) {
                 nonZero++;
             }
         }
         return nonZero > 1;
     }
-    
-    /**
-     * Generate counts of the number of foxes and rabbits.
-     * These are not kept up to date as foxes and rabbits
-     * are placed in the savanna, but only when a request
-     * is made for the information.
-     * @param savanna The savanna to generate the stats for.
-     */
-    private void generateCounts(Savanna savanna)
-    {
-        reset();
-        for(int row = 0; row < savanna.getDepth(); row++) {
-            for(int col = 0; col < savanna.getWidth(); col++) {
-                Object animal = savanna.getObjectAt(row, col);
-                if(animal != null) {
-                    incrementCount(animal.getClass());
-                }
-            }
-        }
-        countsValid = true;
-    }
 }
-
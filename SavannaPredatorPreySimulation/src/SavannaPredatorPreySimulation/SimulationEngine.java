@@ -0,0 +1,47 @@
+package SavannaPredatorPreySimulation;
+
+/**
+ * The contract shared by the simulation engines, so that the engine
+ * can be picked for each run and their throughput compared.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public interface SimulationEngine
+{
+    /**
+     * Run the simulation from its current state for the given number of steps.
+     * Stop before the given number of steps if it ceases to be viable.
+     * @param numSteps The number of steps to run for.
+     */
+    void simulate(int numSteps);
+
+    /**
+     * Run the simulation from its current state for a single step.
+     */
+    void simulateOneStep();
+
+    /**
+     * Reset the simulation to a starting position.
+     */
+    void reset();
+
+    /**
+     * Return the number of steps of the simulator.
+     * @return The current step number of the simulator.
+     */
+    int getStep();
+
+    /**
+     * Determine whether the simulation should continue to run.
+     * @return true If there is more than one species alive.
+     */
+    boolean isViable();
+
+    /**
+     * Return the number of living animals of a species.
+     * @param species The species counted.
+     * @return The number of living animals of that species.
+     */
+    int getPopulation(Species species);
+}
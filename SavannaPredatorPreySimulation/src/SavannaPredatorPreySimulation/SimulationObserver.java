@@ -0,0 +1,55 @@
+package SavannaPredatorPreySimulation;
+
+/**
+ * Something that watches a simulation: a window, a logger, a
+ * recorder of populations. A simulation tells its observers when a
+ * step is done, when the number of animals of any species changes and
+ * when it stops being viable. The simulation itself never draws or
+ * prints anything, so it can run without a display.
+ *
+ * Observers are called on the simulation's thread, between steps;
+ * one that does slow work should hand it to another thread. Every
+ * method does nothing unless overridden.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public interface SimulationObserver
+{
+    /**
+     * Called after the simulation is reset and after every step.
+     * @param simulator The simulation, which must not be changed.
+     */
+    default void stepCompleted(Simulator simulator)
+    {
+    }
+
+    /**
+     * Called after a reset or step that changed the number of animals
+     * of some species, before stepCompleted.
+     * @param step The step just completed.
+     * @param population The number of animals of each species, indexed
+     *        by species id. It is only valid during the call.
+     */
+    default void populationChanged(int step, int[] population)
+    {
+    }
+
+    /**
+     * Called when a run of steps started by simulate() ends, whether
+     * it ran out of steps or stopped being viable.
+     * @param simulator The simulation, which must not be changed.
+     */
+    default void simulationStopped(Simulator simulator)
+    {
+    }
+
+    /**
+     * Called once when the simulation stops being viable, that is
+     * when fewer than two species are left.
+     * @param step The step at which it stopped being viable.
+     */
+    default void viabilityLost(int step)
+    {
+    }
+}
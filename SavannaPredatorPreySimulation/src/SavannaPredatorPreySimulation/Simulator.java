@@ -1,73 +1,78 @@
 package SavannaPredatorPreySimulation;
 
+import java.awt.GraphicsEnvironment;
 import java.util.Random;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.awt.Color;
+import java.util.Arrays;
 
 /**
  * A predator-prey simulator, based on a rectangular savanna
  * containing animals and plants. With events happening frequently.
+ *
+ * The simulator itself does not draw anything. Anything that wants to
+ * follow it, such as a SimulatorView, registers as a SimulationObserver
+ * and is told about every step. A simulator made with its own random
+ * generator shares nothing with other simulators, so that many can
+ * run side by side in one JVM, and never opens a window; one made
+ * without opens a SimulatorView onto itself when a display is there,
+ * so that new Simulator().runLongSimulation() shows the run.
  * 
  * @author Dennis Kolley
  * @version 2021.03.01
  */
-public class Simulator
+public class Simulator implements SimulationEngine
 {
     // Constants representing configuration information for the simulation.
     // The default width for the grid.
-    private static final int DEFAULT_WIDTH = 360;
+    static final int DEFAULT_WIDTH = 360;
     // The default depth of the grid.
-    private static final int DEFAULT_DEPTH = 240;
+    static final int DEFAULT_DEPTH = 240;
     // The probability that a lion will be created in any given grid position.
-    private static final double LION_CREATION_PROBABILITY = 0.04;
+    static final double LION_CREATION_PROBABILITY = 0.04;
     // The probability that a cheetah will be created in any given grid position.
-    private static final double CHEETAH_CREATION_PROBABILITY = 0.04;
+    static final double CHEETAH_CREATION_PROBABILITY = 0.04;
     // The probability that a buffalo will be created in any given grid position.
-    private static final double BUFFALO_CREATION_PROBABILITY = 0.08;
+    static final double BUFFALO_CREATION_PROBABILITY = 0.08;
     // The probability that a zebra will be created in any given grid position.
-    private static final double ZEBRA_CREATION_PROBABILITY = 0.08;
+    static final double ZEBRA_CREATION_PROBABILITY = 0.08;
     // The probability that a gazelle will be created in any given grid position.
-    private static final double GAZELLE_CREATION_PROBABILITY = 0.08;
+    static final double GAZELLE_CREATION_PROBABILITY = 0.08;
     // The probability that a giraffe will be created in any given grid position.
     private static final double GIRAFFE_CREATION_PROBABILITY = 0.08;
     // The probability that an antelope will be created in any given grid position.
-    private static final double ANTELOPE_CREATION_PROBABILITY = 0.08;
-    // The frequency of the event happenning.
-    private static final int WEATHER_PER_STEP = 20;
-    private static final int DISEASE_PER_STEP = 69;
+    static final double ANTELOPE_CREATION_PROBABILITY = 0.08;
 
-    // List of animals in the savanna.
-    private List<Animal> animals;
+    // The animals in the savanna, one list per species id.
+    private List<List<Animal>> animals;
+    // The traits of each species, indexed by species id.
+    private static final SpeciesTraits[] traits = SpeciesTraits.bySpeciesId();
     // The current state of the savanna.
     private SavannaAnimal savannaAnimal;
-    // List of animals in the savanna.
-    private List<Plant> plants;
-    // The current state of the savanna.
+    // The grass of the savanna.
     private SavannaPlant savannaPlant; 
     // The current step of the simulation.
     private int step;
-    // A graphical view of the simulation.
-    private SimulatorView view;
+    // The observers told about each step.
+    private List<SimulationObserver> observers;
+    // The population of each species last reported to the observers, indexed by id.
+    private int[] reported;
+    // Scratch space for counting the population of each species.
+    private int[] counted;
+    // Whether the observers have been told the simulation is no longer viable.
+    private boolean viabilityLost;
     // The current time of the simulation.
     private Time time;
-    // The fields for the weather event.
-    private Weather rain;
-    private Weather drought;
-    private Weather currentWeather;
-    private boolean isWeather;
-    private int weatherStartStep;
-    // The fields for the disease event.
-    private Disease currentDisease;
-    private Disease blackDeath;
-    private int diseaseStartStep;
-    private boolean isDisease;
+    // The weather and disease events.
+    private SavannaEvents events;
     // A randomizer for the simulator.
-    private Random rand = Randomizer.getRandom();
+    private Random rand;
+    // The timings of the phases of each step, when enabled.
+    private StepProfiler profiler;
     
     /**
-     * Construct a simulation savanna with default size.
+     * Construct a simulation savanna with default size, shown in a
+     * window when a display is available.
      */
     public Simulator()
     {
@@ -75,11 +80,28 @@ public class Simulator
     }
     
     /**
-     * Create a simulation savanna with the given size.
+     * Create a simulation savanna with the given size, shown in a
+     * window when a display is available.
      * @param depth Depth of the savanna. Must be greater than zero.
      * @param width Width of the savanna. Must be greater than zero.
      */
     public Simulator(int depth, int width)
+    {
+        this(depth, width, Randomizer.getRandom());
+        if(isDisplayAvailable()) {
+            new SimulatorView(this);
+        }
+    }
+
+    /**
+     * Create a simulation savanna with the given size, whose savanna,
+     * animals and events all draw from the given generator. It has no
+     * window; attach a SimulatorView to watch it.
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     * @param rand The random generator for this simulation alone.
+     */
+    public Simulator(int depth, int width, Random rand)
     {
         if(width <= 0 || depth <= 0) {
             System.out.println("The dimensions must be greater than zero.");
@@ -88,36 +110,53 @@ public class Simulator
             width = DEFAULT_WIDTH;
         }
         
+        this.rand = rand;
         time = new Time();
         
         animals = new ArrayList<>();
-        savannaAnimal = new SavannaAnimal(depth, width);
-        
-        plants = new ArrayList<>();
-        savannaPlant = new SavannaPlant(depth, width);
-        
-        rain = new Rain();
-        drought = new Drought();
-        
-        isWeather = false;
+        for(int id = 0; id < Species.getIdCount(); id++) {
+            animals.add(new ArrayList<>());
+        }
+        savannaAnimal = new SavannaAnimal(depth, width, rand);
         
-        blackDeath = new BlackDeath();
+        savannaPlant = new SavannaPlant(savannaAnimal);
         
-        isDisease = false;
+        events = new SavannaEvents(rand);
 
-        // Create a view of the state of each location in the savanna.
-        view = new SimulatorView(depth, width);
-        view.setColor(Buffalo.class, Color.MAGENTA);
-        view.setColor(Gazelle.class, Color.RED);
-        view.setColor(Zebra.class, Color.GREEN);
-        view.setColor(Cheetah.class, Color.CYAN);
-        view.setColor(Lion.class, Color.BLUE);
-        view.setColor(Antelope.class, Color.YELLOW);
+        observers = new ArrayList<>();
+        reported = new int[Species.getIdCount()];
+        counted = new int[Species.getIdCount()];
+        profiler = new StepProfiler();
         
         // Setup a valid starting point.
         reset();
     }
     
+    /**
+     * Determine whether a window can be opened: the java.desktop
+     * module is in the runtime and the JVM is not headless. The view
+     * is only loaded when it is, so the simulator runs in a runtime
+     * image without java.desktop.
+     * @return true If a SimulatorView can be shown.
+     */
+    private static boolean isDisplayAvailable()
+    {
+        return ModuleLayer.boot().findModule("java.desktop").isPresent()
+            && !isHeadless();
+    }
+
+    /**
+     * Determine whether AWT is headless, either because it was asked
+     * to be or because there is no display to open a window on. This
+     * loads java.desktop classes, so it is only called once the
+     * module is known to be present.
+     * @return true If no window can be opened.
+     */
+    private static boolean isHeadless()
+    {
+        return GraphicsEnvironment.isHeadless();
+    }
+    
     /**
      * Run the simulation from its current state for a reasonably longer period.
      */
@@ -133,9 +172,12 @@ public class Simulator
      */
     public void simulate(int numSteps)
     {
-        for(int step = 1; step <= numSteps && view.isViable(savannaAnimal); step++) {
+        for(int step = 1; step <= numSteps && isViable(); step++) {
             simulateOneStep();
-            // delay(60);   // uncomment this to run more slowly
+            // To run more slowly, observe with a FrameGovernor that caps the steps per second.
+        }
+        for(SimulationObserver observer : observers) {
+            observer.simulationStopped(this);
         }
     }
     
@@ -143,221 +185,289 @@ public class Simulator
      * Run the simulation from its current state for a single step.
      * Iterate over the whole savanna updating the state of each
      * animal and plant.
-     * Invoke the makeWeather() and makeDisease() methods, which generate an event.
+     * Update the weather and disease events first.
+     * The animals act species by species, in order of species id;
+     * a species that is asleep at this hour is skipped as a whole.
+     * 
+     * Within a species the animals act in the order they joined the
+     * savanna: the starting population in grid order, then newborns
+     * in order of birth. Dead animals are dropped in one pass after
+     * their species has acted, which keeps that order, so a seeded
+     * run always repeats itself.
+     *
+     * When the profiler is enabled each phase of the step is timed;
+     * otherwise the clock is not read.
      */
     public void simulateOneStep()
     {
+        boolean profiling = profiler.isEnabled();
+        long stepStart = profiling ? System.nanoTime() : 0;
+        long mark = stepStart;
         step++;
         time.calculateTime(step);
         
-        makeWeather();
-        if(isWeather) {
-            currentWeather = getCurrentWeather();
+        events.update(step);
+        if(profiling) {
+            mark = profiler.lap(StepProfiler.Phase.EVENTS, mark);
         }
-        
-        makeDisease();
-        if(isDisease) {
-            currentDisease = getCurrentDisease();
-        }
-        
-        for(Iterator<Plant> it = plants.iterator(); it.hasNext(); ) {
-            Plant plant = it.next();
-            if(isWeather) {
-                plant.grow(currentWeather.getGrowthChange(), isWeather);
-            } else {
-                plant.grow(1, isWeather);
-            }
+        savannaPlant.grow(events.getGrowthChange());
+        if(profiling) {
+            mark = profiler.lap(StepProfiler.Phase.PLANTS, mark);
         }
         
         // Provide space for newborn animals.
         List<Animal> newAnimals = new ArrayList<>();        
-        // Let all animals act.
-        for(Iterator<Animal> it = animals.iterator(); it.hasNext(); ) {
-            Animal animal = it.next();
-            Sleep sleep = new Sleep(animal.getSleep(), animal.getWake(), time.getHour());
-            boolean isAsleep = sleep.checkSleep();
-            if(isDisease) {
-                animal.act(newAnimals, isAsleep, isDisease, currentDisease.getDiseaseLethality(), currentDisease.getInfectionRate());
-            } else {
-                animal.act(newAnimals, isAsleep, isDisease, 1, 1);
+        // Let all awake animals act.
+        int hour = time.getHour();
+        int acted = 0;
+        for(int id = 1; id < animals.size(); id++) {
+            if(traits[id] == null || !traits[id].isAwake(hour)) {
+                continue;
             }
-            if(!animal.isAlive()) {
-                it.remove();
+            savannaAnimal.advanceClock(id);
+            List<Animal> group = animals.get(id);
+            acted += group.size();
+            for(Animal animal : group) {
+                animal.act(newAnimals, events.isDisease(), events.getLethality(), events.getInfectionRate());
             }
+            removeDead(group);
+        }
+        if(profiling) {
+            mark = profiler.lap(StepProfiler.Phase.ANIMALS, mark);
         }
                
         // Add the newly born animals to the main lists.
-        animals.addAll(newAnimals);
+        for(Animal animal : newAnimals) {
+            addAnimal(animal);
+        }
+        if(profiling) {
+            mark = profiler.lap(StepProfiler.Phase.NEWBORNS, mark);
+        }
 
-        showStatus();
+        notifyObservers();
+        if(profiling) {
+            profiler.lap(StepProfiler.Phase.OBSERVERS, mark);
+            profiler.stepFinished(step, stepStart, acted, newAnimals.size());
+        }
     }
         
+    /**
+     * Remove the dead animals from a list in a single pass, moving
+     * each survivor down over the gaps. Unlike removing animals one
+     * at a time, this stays linear however many die in a step, and
+     * the survivors keep their order.
+     * @param group The list of animals to compact.
+     */
+    private void removeDead(List<Animal> group)
+    {
+        int kept = 0;
+        for(int i = 0; i < group.size(); i++) {
+            Animal animal = group.get(i);
+            if(animal.isAlive()) {
+                group.set(kept++, animal);
+            }
+        }
+        group.subList(kept, group.size()).clear();
+    }
+    
     /**
      * Reset the simulation to a starting position.
      */
     public void reset()
     {
         step = 0;
-        animals.clear();
+        for(List<Animal> group : animals) {
+            group.clear();
+        }
         populateAnimals();
         populatePlants();
         time.resetTime();
-        isWeather = false;
-        isDisease = false;
+        events.reset();
+        Arrays.fill(reported, 0);
+        viabilityLost = false;
         
-        
-        // Show the starting state in the view.
-        showStatus();
+        // Show the starting state to the observers.
+        notifyObservers();
     }
-    
+
     /**
-     * Show the state of the savanna in the GUI.
+     * Register an observer to be told about every later step.
+     * @param observer The observer.
      */
-    private void showStatus()
+    public void addObserver(SimulationObserver observer)
     {
-        if(isWeather && isDisease) {
-            view.showStatus(step, time.getDay(), time.getHour(), savannaAnimal, currentWeather.getName(), isWeather, currentDisease.getName(), isDisease);
-        } else if(isWeather && !isDisease) {
-            view.showStatus(step, time.getDay(), time.getHour(), savannaAnimal, currentWeather.getName(), isWeather, "", isDisease);
-        } else if(!isWeather && isDisease) {
-            view.showStatus(step, time.getDay(), time.getHour(), savannaAnimal, "", isWeather, currentDisease.getName(), isDisease);
-        } else {
-            view.showStatus(step, time.getDay(), time.getHour(), savannaAnimal, "", isWeather, "", isDisease);
-        }
+        observers.add(observer);
     }
-    
+
     /**
-     * Randomly populate the savanna with animals.
+     * Stop telling an observer about steps.
+     * @param observer The observer.
      */
-    private void populateAnimals()
+    public void removeObserver(SimulationObserver observer)
     {
-        savannaAnimal.clear();
-        for(int row = 0; row < savannaAnimal.getDepth(); row++) {
-            for(int col = 0; col < savannaAnimal.getWidth(); col++) {
-                if(rand.nextDouble() <= LION_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Lion lion = new Lion(false, savannaAnimal, location);
-                    animals.add(lion);
-                } else if(rand.nextDouble() <= CHEETAH_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Cheetah cheetah = new Cheetah(false, savannaAnimal, location);
-                    animals.add(cheetah);
-                } else if(rand.nextDouble() <= BUFFALO_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Buffalo buffalo = new Buffalo(false, savannaAnimal, location, savannaPlant);
-                    animals.add(buffalo);
-                } else if(rand.nextDouble() <= ZEBRA_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Zebra zebra = new Zebra(false, savannaAnimal, location, savannaPlant);
-                    animals.add(zebra);
-                } else if(rand.nextDouble() <= GAZELLE_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Gazelle gazelle = new Gazelle(false, savannaAnimal, location, savannaPlant);
-                    animals.add(gazelle);
-                } else if(rand.nextDouble() <= ANTELOPE_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Antelope antelope = new Antelope(false, savannaAnimal, location, savannaPlant);
-                    animals.add(antelope);
-                }
-                // else leave the location empty.
-            }
-        }
+        observers.remove(observer);
     }
     
     /**
-     * Populate every location of the savanna with a plant.
+     * Tell the observers about the step just completed. The
+     * population is only copied when someone is listening.
      */
-    private void populatePlants()
+    private void notifyObservers()
     {
-        savannaPlant.clear();
-        for(int row = 0; row < savannaAnimal.getDepth(); row++) {
-            for(int col = 0; col < savannaAnimal.getWidth(); col++) {
-                Location location = new Location(row, col);
-                Grass grass = new Grass(savannaPlant, location);
-                plants.add(grass);
+        if(observers.isEmpty()) {
+            return;
+        }
+        savannaAnimal.getStats().copyCounts(counted);
+        if(!Arrays.equals(counted, reported)) {
+            System.arraycopy(counted, 0, reported, 0, counted.length);
+            for(SimulationObserver observer : observers) {
+                observer.populationChanged(step, reported);
+            }
+        }
+        for(SimulationObserver observer : observers) {
+            observer.stepCompleted(this);
+        }
+        if(!viabilityLost && !isViable()) {
+            viabilityLost = true;
+            for(SimulationObserver observer : observers) {
+                observer.viabilityLost(step);
             }
         }
     }
-    
+
     /**
-     * Generate weather event.
+     * Determine whether the simulation should continue to run.
+     * @return true If there is more than one species on the savanna.
      */
-    private void makeWeather()
+    public boolean isViable()
     {
-        if(step % WEATHER_PER_STEP == 0) {
-            weatherStartStep = step;
-            if(rand.nextDouble() <= rain.getProbability()) {
-                isWeather = true;
-                currentWeather = rain;
-            } else if(rand.nextDouble() <= drought.getProbability()) {
-                isWeather = true;
-                currentWeather = drought;
-            }
-        }
-        if(isWeather) {
-            if(weatherStartStep + currentWeather.getDuration() <= step) {
-                isWeather = false;
+        return savannaAnimal.getStats().isViable();
+    }
+
+    /**
+     * Return the savanna's animals, for observers to look at.
+     * @return The savanna of the animals.
+     */
+    public SavannaAnimal getSavanna()
+    {
+        return savannaAnimal;
+    }
+
+    /**
+     * Return the profiler that times the phases of each step. It is
+     * off until enabled.
+     * @return The step profiler of the simulation.
+     */
+    public StepProfiler getProfiler()
+    {
+        return profiler;
+    }
+
+    /**
+     * @return The current time of the simulation.
+     */
+    public Time getTime()
+    {
+        return time;
+    }
+
+    /**
+     * @return The weather and disease events of the simulation.
+     */
+    public SavannaEvents getEvents()
+    {
+        return events;
+    }
+
+    /**
+     * Return the number of animals of a species on the savanna.
+     * @param species The species counted.
+     * @return The number of animals of that species.
+     */
+    public int getPopulation(Species species)
+    {
+        return (int) savannaAnimal.getStats().getCount(species.getId());
+    }
+
+    /**
+     * Randomly populate the savanna with animals.
+     */
+    private void populateAnimals()
+    {
+        savannaAnimal.clear();
+        for(int row = 0; row < savannaAnimal.getDepth(); row++) {
+            for(int col = 0; col < savannaAnimal.getWidth(); col++) {
+                Species species = drawStartingSpecies(rand);
+                if(species != null) {
+                    addAnimal(createAnimal(species, savannaAnimal.locationAt(row, col)));
+                }
+                // else leave the location empty.
             }
         }
     }
-    
+
     /**
-     * Return the current weather if a weather event is active.
-     * @return The current weather or null if there is no weather event right now.
+     * Pick the species of the animal, if any, that starts in a cell.
+     * Every simulator populates its savanna through this, so from the
+     * same seed they all start from the same savanna.
+     * @param rand The generator to draw from.
+     * @return The species, or null to leave the cell empty.
      */
-    private Weather getCurrentWeather()
+    static Species drawStartingSpecies(Random rand)
     {
-        if(currentWeather.getName().equals(rain.getName())) {
-            return rain;
-        } else if(currentWeather.getName().equals(drought.getName())) {
-            return drought;
+        if(rand.nextDouble() <= LION_CREATION_PROBABILITY) {
+            return Species.LION;
+        } else if(rand.nextDouble() <= CHEETAH_CREATION_PROBABILITY) {
+            return Species.CHEETAH;
+        } else if(rand.nextDouble() <= BUFFALO_CREATION_PROBABILITY) {
+            return Species.BUFFALO;
+        } else if(rand.nextDouble() <= ZEBRA_CREATION_PROBABILITY) {
+            return Species.ZEBRA;
+        } else if(rand.nextDouble() <= GAZELLE_CREATION_PROBABILITY) {
+            return Species.GAZELLE;
+        } else if(rand.nextDouble() <= ANTELOPE_CREATION_PROBABILITY) {
+            return Species.ANTELOPE;
         }
         return null;
     }
-    
+
     /**
-     * Generate disease event.
+     * Create an animal of the starting population.
+     * @param species The species of the animal.
+     * @param location Where the animal starts.
+     * @return The new animal, placed in the savanna.
      */
-    private void makeDisease()
+    private Animal createAnimal(Species species, Location location)
     {
-        if(step % DISEASE_PER_STEP == 0) {
-            diseaseStartStep = step;
-            if(rand.nextDouble() <= blackDeath.getProbability()) {
-                isDisease = true;
-                currentDisease = blackDeath;
-            }
-        }
-        if(isDisease) {
-            if(diseaseStartStep + currentDisease.getDuration() <= step) {
-                isDisease = false;
-            }
+        if(species == Species.LION) {
+            return new Lion(false, savannaAnimal, location);
+        } else if(species == Species.CHEETAH) {
+            return new Cheetah(false, savannaAnimal, location);
+        } else if(species == Species.BUFFALO) {
+            return new Buffalo(false, savannaAnimal, location, savannaPlant);
+        } else if(species == Species.ZEBRA) {
+            return new Zebra(false, savannaAnimal, location, savannaPlant);
+        } else if(species == Species.GAZELLE) {
+            return new Gazelle(false, savannaAnimal, location, savannaPlant);
         }
+        return new Antelope(false, savannaAnimal, location, savannaPlant);
     }
     
     /**
-     * Return the current disease if a disease event is active.
-     * @return The current disease or null if there is no disease event right now.
+     * Add an animal to the list of its species.
+     * @param animal The animal to add.
      */
-    private Disease getCurrentDisease()
+    private void addAnimal(Animal animal)
     {
-        if(currentDisease.getName().equals(blackDeath.getName())) {
-            return blackDeath;
-        }
-        return null;
+        animals.get(animal.getSpecies().getId()).add(animal);
     }
     
     /**
-     * Pause for a given time.
-     * @param millisec The time to pause for, in milliseconds.
+     * Populate every location of the savanna with a plant.
      */
-    private void delay(int millisec)
+    private void populatePlants()
     {
-        try {
-            Thread.sleep(millisec);
-        }
-        catch (InterruptedException ie) {
-            // wake up
-        }
+        savannaPlant.growAll();
     }
     
     /**
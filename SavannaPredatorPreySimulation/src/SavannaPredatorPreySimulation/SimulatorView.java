@@ -2,9 +2,11 @@ package SavannaPredatorPreySimulation;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import javax.swing.*;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A graphical view of the simulation grid.
@@ -12,11 +14,18 @@ import java.util.Map;
  * representing its contents. It uses a default background color.
  * Colors for each type of species can be defined using the
  * setColor method.
+ *
+ * The view is an observer of the simulation. After each step it
+ * copies the savanna into a frame snapshot and publishes it; it then
+ * draws the latest
+ * published frame on the event dispatch thread, skipping any frames
+ * published while it was busy. A slow display therefore never holds
+ * the simulation up.
  * 
  * @author Dennis Kolley
  * @version 2021.03.01
  */
-public class SimulatorView extends JFrame
+public class SimulatorView extends JFrame implements SimulationObserver
 {
     // Colors used for empty locations.
     private static final Color EMPTY_COLOR = Color.white;
@@ -30,13 +39,55 @@ public class SimulatorView extends JFrame
     private final String WEATHER_PREFIX = "Current weather: ";
     private final String HOUR_POSTFIX = ":00";
     private final String DISEASE_PREFIX = "Current disease: ";
+    private final String RATE_FORMAT = " (%.0f steps/s, %.0f fps)";
     private JLabel stepLabel, population, timeLabel, eventLabel;
     private savannaView savannaView;
     
-    // A map for storing colors for participants in the simulation
-    private Map<Class, Color> colors;
-    // A statistics object computing and storing simulation information
-    private SavannaStats stats;
+    // The RGB color for each species id; id 0 is an empty cell
+    private int[] palette;
+    // The frames handed over by the simulation
+    private FrameRing frames;
+    // Whether a drawing of the latest frame is already waiting on the event thread
+    private AtomicBoolean renderPending;
+    // The number of animals of each species in the frame drawn, indexed by id
+    private int[] counts;
+    // The governor deciding which steps are shown, if the view made one
+    private FrameGovernor governor;
+    // The start of the current second of drawing, and the frames drawn in it
+    private long drawWindowStart;
+    private int drawWindowFrames;
+    // The frames drawn per second over the last complete second
+    private double framesPerSecond;
+
+    /**
+     * Create a view of a simulation, with a color for each species,
+     * and follow the simulation from its current step on. Steps are
+     * shown through a FrameGovernor at its default frame rate.
+     * @param simulator The simulation to show.
+     */
+    public SimulatorView(Simulator simulator)
+    {
+        this(simulator.getSavanna().getDepth(), simulator.getSavanna().getWidth());
+        setColor(Species.BUFFALO, Color.MAGENTA);
+        setColor(Species.GAZELLE, Color.RED);
+        setColor(Species.ZEBRA, Color.GREEN);
+        setColor(Species.CHEETAH, Color.CYAN);
+        setColor(Species.LION, Color.BLUE);
+        setColor(Species.ANTELOPE, Color.YELLOW);
+        governor = new FrameGovernor(this);
+        simulator.addObserver(governor);
+        stepCompleted(simulator);
+    }
+
+    /**
+     * Return the governor deciding which steps are shown, to change
+     * the frame rate or cap the steps per second.
+     * @return The governor, or null if the view was not given a simulator.
+     */
+    public FrameGovernor getGovernor()
+    {
+        return governor;
+    }
 
     /**
      * Create a view of the given width and height.
@@ -47,8 +98,13 @@ public class SimulatorView extends JFrame
      */
     public SimulatorView(int height, int width)
     {
-        stats = new SavannaStats();
-        colors = new LinkedHashMap<>();
+        palette = new int[Species.getIdCount()];
+        Arrays.fill(palette, UNKNOWN_COLOR.getRGB());
+        palette[0] = EMPTY_COLOR.getRGB();
+        frames = new FrameRing(height, width);
+        renderPending = new AtomicBoolean();
+        counts = new int[Species.getIdCount()];
+        drawWindowStart = System.nanoTime();
         setTitle("Savanna simulation");
         stepLabel = new JLabel(STEP_PREFIX, JLabel.CENTER);
         timeLabel = new JLabel(DAY_PREFIX, JLabel.CENTER);
@@ -69,13 +125,14 @@ public class SimulatorView extends JFrame
     }
     
     /**
-     * Define a color to be used for a given class of animal.
-     * @param animalClass The animal's Class object.
-     * @param color The color to be used for the given class.
+     * Define a color to be used for a given species.
+     * @param species The species.
+     * @param color The color to be used for the given species.
      */
-    public void setColor(Class animalClass, Color color)
+    public void setColor(Species species, Color color)
     {
-        colors.put(animalClass, color);
+        palette[species.getId()] = color.getRGB();
+        savannaView.redrawAll();
     }
 
     /**
@@ -97,37 +154,101 @@ public class SimulatorView extends JFrame
     }
 
     /**
-     * @param animalClass The class of the animal in question
-     * @return The color to be used for a given class of animal.
+     * Capture the step just completed and hand it over to be drawn.
+     * @param simulator The simulation shown.
+     */
+    public void stepCompleted(Simulator simulator)
+    {
+        Time time = simulator.getTime();
+        SavannaEvents events = simulator.getEvents();
+        FrameSnapshot frame = nextFrame();
+        frame.capture(simulator.getStep(), time.getDay(), time.getHour(), simulator.getSavanna(), events.getWeatherName(), events.isWeather(), events.getDiseaseName(), events.isDisease());
+        publishFrame();
+    }
+
+    /**
+     * Return the snapshot for the simulation to fill with its next
+     * frame. It must be published with publishFrame() before the
+     * next call.
+     * @return The snapshot to fill.
+     */
+    public FrameSnapshot nextFrame()
+    {
+        return frames.nextFrame();
+    }
+
+    /**
+     * Hand the frame just filled to the view, and ask the event
+     * dispatch thread to draw the latest frame unless it has already
+     * been asked. Returns at once.
+     */
+    public void publishFrame()
+    {
+        frames.publish();
+        if(renderPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::render);
+        }
+    }
+
+    /**
+     * Draw the latest frame, if there is a new one. Runs on the
+     * event dispatch thread.
      */
-    private Color getColor(Class animalClass)
+    private void render()
     {
-        Color col = colors.get(animalClass);
-        if(col == null) {
-            // no color defined for this class
-            return UNKNOWN_COLOR;
+        // Clear the flag first, so a frame published while drawing
+        // asks for another drawing.
+        renderPending.set(false);
+        FrameSnapshot frame = frames.take();
+        if(frame != null) {
+            countFrame();
+            showStatus(frame);
         }
-        else {
-            return col;
+    }
+
+    /**
+     * Count a frame taken to be drawn, and work out the frames drawn
+     * per second once a second has passed. Runs on the event
+     * dispatch thread.
+     */
+    private void countFrame()
+    {
+        long now = System.nanoTime();
+        drawWindowFrames++;
+        if(now - drawWindowStart >= 1_000_000_000L) {
+            framesPerSecond = drawWindowFrames * 1e9 / (now - drawWindowStart);
+            drawWindowStart = now;
+            drawWindowFrames = 0;
         }
     }
 
     /**
-     * Show the current status of the savanna.
-     * @param step Which iteration step it is.
-     * @param day Will store either "Day" or "Night" depending on the hour value of time is.
-     * @param hour The hour that represents the hour of the time of day (unit of time).
-     * @param savanna The savanna whose status is to be displayed.
-     * @param weatherName Stores the current weather of the sim ==> At the moment can be either "Rain" or "Drought".
-     * @param isWeather Whether or not weather has been simulated. 
-     * @param diseaseName What type of disease it is that an animal can have.
-     * @param isDisease Lets simulation know whether disease event is currently ongoing.
+     * Return the frames drawn per second, which is fewer than the
+     * governor offers when the event dispatch thread falls behind.
+     * Call it on the event dispatch thread.
+     * @return The frames drawn per second over the last second.
+     */
+    public double getFramesPerSecond()
+    {
+        return framesPerSecond;
+    }
+
+    /**
+     * Show the status of the savanna captured in a frame.
+     * @param frame The frame to show.
      */
-    public void showStatus(int step, int day, int hour, Savanna savanna, String weatherName, boolean isWeather, String diseaseName, boolean isDisease)
+    private void showStatus(FrameSnapshot frame)
     {
         if(!isVisible()) {
             setVisible(true);
         }
+        int hour = frame.getHour();
+        int step = frame.getStep();
+        int day = frame.getDay();
+        String weatherName = frame.getWeatherName();
+        boolean isWeather = frame.isWeather();
+        String diseaseName = frame.getDiseaseName();
+        boolean isDisease = frame.isDisease();
         
         //Change the abbreviation depending on the current hour value of the simulation
         if(hour >= 12) {
@@ -139,7 +260,11 @@ public class SimulatorView extends JFrame
         //every time status is updated (done every step)
         //We update the step label which is +1
         //We update the time tabel which is hour+1 and new abbreviation used depending on hour
-        stepLabel.setText(STEP_PREFIX + step);
+        if(governor != null) {
+            stepLabel.setText(STEP_PREFIX + step + String.format(RATE_FORMAT, governor.getStepsPerSecond(), framesPerSecond));
+        } else {
+            stepLabel.setText(STEP_PREFIX + step);
+        }
         timeLabel.setText(DAY_PREFIX + day + ", " + hour + HOUR_POSTFIX + abbreviation);
         
         
@@ -158,34 +283,35 @@ public class SimulatorView extends JFrame
             eventLabel.setText("");
         }
         
-        stats.reset();
-        savannaView.preparePaint();
+        savannaView.drawFrame(frame, palette, counts);
+        population.setText(POPULATION_PREFIX + getPopulationDetails());
+    }
 
-        for(int row = 0; row < savanna.getDepth(); row++) {
-            for(int col = 0; col < savanna.getWidth(); col++) {
-                Object animal = savanna.getObjectAt(row, col);
-                if(animal != null) {
-                    stats.incrementCount(animal.getClass());
-                    savannaView.drawMark(col, row, getColor(animal.getClass()));
-                }
-                else {
-                    savannaView.drawMark(col, row, EMPTY_COLOR);
-                }
-            }
+    /**
+     * @return The number of animals of each species in the frame drawn.
+     */
+    private String getPopulationDetails()
+    {
+        StringBuilder buffer = new StringBuilder();
+        for(int id = 1; id < counts.length; id++) {
+            buffer.append(Species.byId(id).getName());
+            buffer.append(": ");
+            buffer.append(counts[id]);
+            buffer.append(' ');
         }
-        stats.countFinished();
-        population.setText(POPULATION_PREFIX + stats.getPopulationDetails(savanna));
-        savannaView.repaint();
+        return buffer.toString();
     }
 
     /**
-     * Determine whether the simulation should continue to run.
+     * Determine whether the simulation should continue to run. The
+     * savanna's own counts are asked, since the view's counts belong
+     * to the event dispatch thread and may lag behind.
      * @param savanna The savanna of our simulation that all the animals interact and behave on
      * @return true If there is more than one species alive.
      */
-    public boolean isViable(Savanna savanna)
+    public boolean isViable(SavannaAnimal savanna)
     {
-        return stats.isViable(savanna);
+        return savanna.getStats().isViable();
     }
     
     /**
@@ -193,15 +319,54 @@ public class SimulatorView extends JFrame
      * a nested class (a class defined inside a class) which
      * defines a custom component for the user interface. This
      * component displays the savanna.
+     *
+     * The component is a viewport onto the savanna that can be zoomed
+     * with the mouse wheel and panned by dragging. It keeps an image
+     * the size of the component, whose pixels are written straight
+     * into its int array, and only the visible window of the savanna
+     * is drawn into it. Zoomed in, each cell covers a square of
+     * pixels. Zoomed out, each pixel covers a square block of cells
+     * and shows the colors of their species mixed by how many cells
+     * each holds, taken from a DensityMipmap once the blocks are big
+     * enough. The cost of drawing therefore follows the size of the
+     * component rather than the size of the savanna.
+     *
+     * When a frame follows straight on from the one drawn before, only
+     * its dirty cells are taken from it and only the part of the
+     * window around them is drawn again. After a skipped frame the
+     * whole frame is taken again.
      */
     private class savannaView extends JPanel
     {
         private final int GRID_VIEW_SCALING_FACTOR = 4;
+        // The largest size the component asks for, in pixels.
+        private final int MAX_PREFERRED_WIDTH = 1200;
+        private final int MAX_PREFERRED_HEIGHT = 800;
+        // The most pixels across a cell, as a power of two.
+        private final int MAX_ZOOM = 5;
+        // The color drawn outside the savanna.
+        private final int OUTSIDE_RGB = Color.darkGray.getRGB();
         private int gridWidth, gridHeight;
-        private int xScale, yScale;
-        Dimension size;
-        private Graphics g;
-        private Image savannaImage;
+        // The image of the visible window, one pixel per pixel of the component.
+        private BufferedImage savannaImage;
+        // The pixels of the image, row by row.
+        private int[] pixels;
+        // The species id shown in each cell of the savanna.
+        private byte[] shown;
+        // The number of cells of each species in blocks of the savanna.
+        private DensityMipmap mipmap;
+        // Scratch space for the counts of one block, indexed by species id.
+        private int[] blockCounts;
+        // The zoom: 2^zoom pixels across a cell, or 2^-zoom cells across a pixel if negative.
+        private int zoom;
+        // The cell at the top left corner of the window.
+        private int originRow, originCol;
+        // The sequence number of the frame drawn last.
+        private long drawnSequence;
+        // Whether the next frame must be taken in full.
+        private boolean fullRedraw;
+        // Where the mouse was pressed or last dragged to.
+        private Point dragFrom;
 
         /**
          * Create a new savannaView component.
@@ -212,64 +377,350 @@ public class SimulatorView extends JFrame
         {
             gridHeight = height;
             gridWidth = width;
-            size = new Dimension(0, 0);
+            shown = new byte[height * width];
+            mipmap = new DensityMipmap(height, width, Species.getIdCount());
+            blockCounts = new int[Species.getIdCount()];
+            // Start at the default scale, or zoomed out until the savanna fits.
+            Dimension preferred = getPreferredSize();
+            zoom = Integer.numberOfTrailingZeros(GRID_VIEW_SCALING_FACTOR);
+            while(zoom > -mipmap.getTopLevel() && (cellsAcross(preferred.width) < width || cellsAcross(preferred.height) < height)) {
+                zoom--;
+            }
+            fullRedraw = true;
+            addMouseWheelListener(e -> zoomAt(e.getPoint(), -e.getWheelRotation()));
+            addMouseListener(new MouseAdapter() {
+                public void mousePressed(MouseEvent e)
+                {
+                    dragFrom = e.getPoint();
+                }
+            });
+            addMouseMotionListener(new MouseMotionAdapter() {
+                public void mouseDragged(MouseEvent e)
+                {
+                    // Keep the pixels too few to move a whole cell for the next drag.
+                    Point used = panBy(dragFrom.x - e.getX(), dragFrom.y - e.getY());
+                    dragFrom.translate(-used.x, -used.y);
+                }
+            });
         }
 
         /**
-         * Tell the GUI manager how big we would like to be.
+         * Tell the GUI manager how big we would like to be: the
+         * savanna at the default scale, up to a size that fits on
+         * a screen.
          */
         public Dimension getPreferredSize()
         {
-            return new Dimension(gridWidth * GRID_VIEW_SCALING_FACTOR,
-                                 gridHeight * GRID_VIEW_SCALING_FACTOR);
+            return new Dimension(Math.min(gridWidth * GRID_VIEW_SCALING_FACTOR, MAX_PREFERRED_WIDTH),
+                                 Math.min(gridHeight * GRID_VIEW_SCALING_FACTOR, MAX_PREFERRED_HEIGHT));
         }
 
         /**
-         * Prepare for a new round of painting. Since the component
-         * may be resized, compute the scaling factor again.
+         * Have the next frame taken in full.
          */
-        public void preparePaint()
+        public void redrawAll()
         {
-            if(! size.equals(getSize())) {  // if the size has changed...
-                size = getSize();
-                savannaImage = savannaView.createImage(size.width, size.height);
-                g = savannaImage.getGraphics();
-                xScale = size.width / gridWidth;
-                if(xScale < 1) {
-                    xScale = GRID_VIEW_SCALING_FACTOR;
-                }
-                yScale = size.height / gridHeight;
-                if(yScale < 1) {
-                    yScale = GRID_VIEW_SCALING_FACTOR;
+            fullRedraw = true;
+        }
+
+        /**
+         * Return the number of cells across a number of pixels at the
+         * current zoom.
+         * @param pixelCount The number of pixels.
+         * @return The number of cells they cover, rounded up.
+         */
+        private int cellsAcross(int pixelCount)
+        {
+            if(zoom >= 0) {
+                return (pixelCount + (1 << zoom) - 1) >> zoom;
+            }
+            return pixelCount << -zoom;
+        }
+
+        /**
+         * Zoom in or out by powers of two, keeping the cell under the
+         * mouse where it is.
+         * @param at The point of the component zoomed about.
+         * @param steps The number of times to double the zoom; negative to zoom out.
+         */
+        private void zoomAt(Point at, int steps)
+        {
+            int newZoom = Math.max(-mipmap.getTopLevel(), Math.min(MAX_ZOOM, zoom + steps));
+            if(newZoom == zoom) {
+                return;
+            }
+            double row = originRow + at.y * Math.pow(2, -zoom);
+            double col = originCol + at.x * Math.pow(2, -zoom);
+            zoom = newZoom;
+            originRow = (int) Math.floor(row - at.y * Math.pow(2, -zoom));
+            originCol = (int) Math.floor(col - at.x * Math.pow(2, -zoom));
+            clampOrigin();
+            renderAll();
+        }
+
+        /**
+         * Move the window by a number of pixels.
+         * The window moves by whole cells, rounding towards zero the
+         * same way in either direction.
+         * @param dx The pixels to move right.
+         * @param dy The pixels to move down.
+         * @return The pixels across and down turned into whole cells.
+         */
+        private Point panBy(int dx, int dy)
+        {
+            int oldRow = originRow, oldCol = originCol;
+            int rows = zoom >= 0 ? dy / (1 << zoom) : dy << -zoom;
+            int cols = zoom >= 0 ? dx / (1 << zoom) : dx << -zoom;
+            originRow += rows;
+            originCol += cols;
+            Point used = new Point(pixelAt(cols), pixelAt(rows));
+            clampOrigin();
+            if(originRow != oldRow || originCol != oldCol) {
+                renderAll();
+            }
+            return used;
+        }
+
+        /**
+         * Keep the window over the savanna where the savanna is bigger
+         * than the window, and at its top left corner where it is not.
+         */
+        private void clampOrigin()
+        {
+            Dimension size = getSize();
+            originRow = Math.max(0, Math.min(originRow, gridHeight - cellsAcross(size.height)));
+            originCol = Math.max(0, Math.min(originCol, gridWidth - cellsAcross(size.width)));
+            if(zoom < 0) {
+                // Line the window up with the blocks the pixels show.
+                int mask = (1 << -zoom) - 1;
+                originRow &= ~mask;
+                originCol &= ~mask;
+            }
+        }
+
+        /**
+         * Take a frame in and draw the parts of the window it changed,
+         * keeping the count of the animals of each species up to date.
+         * @param frame The frame to draw.
+         * @param palette The RGB color for each species id.
+         * @param counts The count of each species, indexed by id,
+         *        as left by the previous frame.
+         */
+        public void drawFrame(FrameSnapshot frame, int[] palette, int[] counts)
+        {
+            // The dirty cells cover every change since the base frame, so
+            // they are enough if that frame or a later one was drawn.
+            boolean covered = frame.getBaseSequence() >= 0 && frame.getBaseSequence() <= drawnSequence;
+            drawnSequence = frame.getSequence();
+            if(fullRedraw || !covered) {
+                fullRedraw = false;
+                takeAll(frame, counts);
+                renderAll();
+            } else {
+                takeDirty(frame, counts);
+            }
+        }
+
+        /**
+         * Take every cell of a frame, counting the animals of each
+         * species on the way, and count the blocks again.
+         * @param frame The frame to take.
+         * @param counts The array to count into, indexed by species id.
+         */
+        private void takeAll(FrameSnapshot frame, int[] counts)
+        {
+            Arrays.fill(counts, 0);
+            for(int index = 0; index < shown.length; index++) {
+                int id = frame.getCode(index) >> 1;
+                counts[id]++;
+                shown[index] = (byte) id;
+            }
+            mipmap.rebuild(shown);
+        }
+
+        /**
+         * Take the dirty cells of a frame, adjusting the counts, and
+         * draw the part of the window that holds them.
+         * @param frame The frame to take.
+         * @param counts The count of each species, indexed by id.
+         */
+        private void takeDirty(FrameSnapshot frame, int[] counts)
+        {
+            int top = gridHeight, bottom = -1, left = gridWidth, right = -1;
+            for(int word = 0; word < frame.getDirtyWordCount(); word++) {
+                long bits = frame.getDirtyWord(word);
+                while(bits != 0) {
+                    int index = word << 6 | Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if(index >= shown.length) {
+                        break;
+                    }
+                    int id = frame.getCode(index) >> 1;
+                    int old = shown[index];
+                    if(id == old) {
+                        continue;
+                    }
+                    int row = index / gridWidth;
+                    int col = index - row * gridWidth;
+                    counts[old]--;
+                    counts[id]++;
+                    shown[index] = (byte) id;
+                    mipmap.change(row, col, old, id);
+                    top = Math.min(top, row);
+                    bottom = Math.max(bottom, row);
+                    left = Math.min(left, col);
+                    right = Math.max(right, col);
                 }
             }
+            if(bottom >= 0) {
+                renderCells(top, left, bottom, right);
+            }
         }
-        
+
+        /**
+         * Draw the pixels of the window covering a rectangle of cells,
+         * and repaint them.
+         * @param top The first row of cells.
+         * @param left The first column of cells.
+         * @param bottom The last row of cells.
+         * @param right The last column of cells.
+         */
+        private void renderCells(int top, int left, int bottom, int right)
+        {
+            if(savannaImage == null) {
+                return;
+            }
+            int y = pixelAt(top - originRow);
+            int x = pixelAt(left - originCol);
+            int y2 = pixelAt(bottom + 1 - originRow);
+            int x2 = pixelAt(right + 1 - originCol);
+            if(zoom < 0) {
+                // A pixel shows a whole block; include the blocks partly covered.
+                y2++;
+                x2++;
+            }
+            y = Math.max(0, y);
+            x = Math.max(0, x);
+            y2 = Math.min(savannaImage.getHeight(), y2);
+            x2 = Math.min(savannaImage.getWidth(), x2);
+            if(x < x2 && y < y2) {
+                render(x, y, x2, y2);
+                repaint(x, y, x2 - x, y2 - y);
+            }
+        }
+
         /**
-         * Paint on grid location on this savanna in a given color.
+         * Return the first pixel of the window at or after an offset
+         * of a number of cells from the origin.
+         * @param cells The number of cells from the origin.
+         * @return The pixel.
          */
-        public void drawMark(int x, int y, Color color)
+        private int pixelAt(int cells)
         {
-            g.setColor(color);
-            g.fillRect(x * xScale, y * yScale, xScale-1, yScale-1);
+            if(zoom >= 0) {
+                return cells << zoom;
+            }
+            return cells >> -zoom;
         }
 
         /**
-         * The savanna view component needs to be redisplayed. Copy the
-         * internal image to screen.
+         * Draw the whole window and repaint it.
          */
-        public void paintComponent(Graphics g)
+        private void renderAll()
         {
             if(savannaImage != null) {
-                Dimension currentSize = getSize();
-                if(size.equals(currentSize)) {
-                    g.drawImage(savannaImage, 0, 0, null);
+                render(0, 0, savannaImage.getWidth(), savannaImage.getHeight());
+            }
+            repaint();
+        }
+
+        /**
+         * Draw a rectangle of the window's pixels.
+         * @param x The first column of pixels.
+         * @param y The first row of pixels.
+         * @param x2 One past the last column of pixels.
+         * @param y2 One past the last row of pixels.
+         */
+        private void render(int x, int y, int x2, int y2)
+        {
+            int imageWidth = savannaImage.getWidth();
+            for(int py = y; py < y2; py++) {
+                int row = zoom >= 0 ? originRow + (py >> zoom) : originRow + (py << -zoom);
+                for(int px = x; px < x2; px++) {
+                    int col = zoom >= 0 ? originCol + (px >> zoom) : originCol + (px << -zoom);
+                    int rgb;
+                    if(row >= gridHeight || col >= gridWidth) {
+                        rgb = OUTSIDE_RGB;
+                    } else if(zoom >= 0) {
+                        rgb = palette[shown[row * gridWidth + col]];
+                    } else {
+                        rgb = blockColor(row, col, -zoom);
+                    }
+                    pixels[py * imageWidth + px] = rgb;
+                }
+            }
+        }
+
+        /**
+         * Return the colors of the species in a block of cells, mixed
+         * by how many cells each holds.
+         * @param row The first row of the block.
+         * @param col The first column of the block.
+         * @param level The block is 2^level cells across.
+         * @return The mixed RGB color.
+         */
+        private int blockColor(int row, int col, int level)
+        {
+            int cells;
+            if(level >= DensityMipmap.BASE_LEVEL) {
+                mipmap.getCounts(level, row, col, blockCounts);
+                cells = 0;
+                for(int id = 0; id < blockCounts.length; id++) {
+                    cells += blockCounts[id];
+                }
+            } else {
+                // Small blocks are counted from the cells themselves.
+                Arrays.fill(blockCounts, 0);
+                int lastRow = Math.min(gridHeight, row + (1 << level));
+                int lastCol = Math.min(gridWidth, col + (1 << level));
+                for(int r = row; r < lastRow; r++) {
+                    for(int c = col; c < lastCol; c++) {
+                        blockCounts[shown[r * gridWidth + c]]++;
+                    }
                 }
-                else {
-                    // Rescale the previous image.
-                    g.drawImage(savannaImage, 0, 0, currentSize.width, currentSize.height, null);
+                cells = (lastRow - row) * (lastCol - col);
+            }
+            int red = 0, green = 0, blue = 0;
+            for(int id = 0; id < blockCounts.length; id++) {
+                int count = blockCounts[id];
+                if(count > 0) {
+                    int rgb = palette[id];
+                    red += (rgb >> 16 & 0xFF) * count;
+                    green += (rgb >> 8 & 0xFF) * count;
+                    blue += (rgb & 0xFF) * count;
                 }
             }
+            return red / cells << 16 | green / cells << 8 | blue / cells;
+        }
+
+        /**
+         * The savanna view component needs to be redisplayed. Copy the
+         * image of the window to screen, making a new one first if the
+         * component has changed size.
+         */
+        public void paintComponent(Graphics g)
+        {
+            Dimension currentSize = getSize();
+            if(currentSize.width <= 0 || currentSize.height <= 0) {
+                return;
+            }
+            if(savannaImage == null || savannaImage.getWidth() != currentSize.width || savannaImage.getHeight() != currentSize.height) {
+                savannaImage = new BufferedImage(currentSize.width, currentSize.height, BufferedImage.TYPE_INT_RGB);
+                pixels = ((DataBufferInt) savannaImage.getRaster().getDataBuffer()).getData();
+                clampOrigin();
+                render(0, 0, currentSize.width, currentSize.height);
+            }
+            g.drawImage(savannaImage, 0, 0, null);
         }
     }
 }
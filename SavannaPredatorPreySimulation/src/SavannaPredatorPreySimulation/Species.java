@@ -0,0 +1,137 @@
+package SavannaPredatorPreySimulation;
+
+/**
+ * A registry giving each species of animal a small integer id.
+ * Ids start at 1, so that 0 can mean an empty cell, and are small
+ * enough to be used as bit positions: a predator's diet is a mask
+ * with one bit per species it eats.
+ *
+ * The code stored in the savanna's grid for an animal is its id
+ * shifted left by one with the animal's sex in the lowest bit, so
+ * two animals are of the same species and opposite sex exactly when
+ * their codes differ only in that bit.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class Species
+{
+    // The largest id a species can have and still fit in a diet mask.
+    public static final int MAX_ID = 31;
+    // Every registered species, indexed by id.
+    private static final Species[] registry = new Species[MAX_ID + 1];
+    // The number of ids handed out so far, counting the unused id 0.
+    private static int count = 1;
+
+    // The species of the simulation.
+    public static final Species LION = new Species("Lion");
+    public static final Species CHEETAH = new Species("Cheetah");
+    public static final Species BUFFALO = new Species("Buffalo");
+    public static final Species ZEBRA = new Species("Zebra");
+    public static final Species GAZELLE = new Species("Gazelle");
+    public static final Species ANTELOPE = new Species("Antelope");
+
+    // The id of the species.
+    private final int id;
+    // The name of the species.
+    private final String name;
+
+    /**
+     * Register a new species under the next free id.
+     * @param name The name of the species.
+     */
+    private Species(String name)
+    {
+        if(count > MAX_ID) {
+            throw new IllegalStateException("Too many species registered.");
+        }
+        this.id = count++;
+        this.name = name;
+        registry[id] = this;
+    }
+
+    /**
+     * Return the id of the species.
+     * @return The id of the species, from 1 upwards.
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    /**
+     * Return the name of the species.
+     * @return The name of the species.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Return the bit that stands for this species in a diet mask.
+     * @return A mask with just this species' bit set.
+     */
+    public int getBit()
+    {
+        return 1 << id;
+    }
+
+    /**
+     * Return the grid code of an animal of this species.
+     * @param isFemale The sex of the animal.
+     * @return The id shifted left by one, with the sex in the low bit.
+     */
+    public short codeOf(boolean isFemale)
+    {
+        return (short) (id << 1 | (isFemale ? 1 : 0));
+    }
+
+    /**
+     * Return whether a grid code belongs to a species in a diet mask.
+     * @param diet A mask of species bits.
+     * @param code A grid code, or FlatGrid.EMPTY.
+     * @return true if the code's species is in the diet.
+     */
+    public static boolean inDiet(int diet, int code)
+    {
+        return (diet >>> (code >> 1) & 1) != 0;
+    }
+
+    /**
+     * Build a diet mask from a list of species.
+     * @param species The species eaten.
+     * @return A mask with one bit set for each species.
+     */
+    public static int maskOf(Species... species)
+    {
+        int mask = 0;
+        for(Species s : species) {
+            mask |= s.getBit();
+        }
+        return mask;
+    }
+
+    /**
+     * Return the species with the given id.
+     * @param id The id of the species.
+     * @return The species, or null if no species has that id.
+     */
+    public static Species byId(int id)
+    {
+        if(id <= 0 || id >= count) {
+            return null;
+        }
+        return registry[id];
+    }
+
+    /**
+     * Return the number of ids in use, counting the unused id 0.
+     * Arrays indexed by species id should be this long.
+     * @return One more than the largest species id.
+     */
+    public static int getIdCount()
+    {
+        return count;
+    }
+}
@@ -0,0 +1,198 @@
+package SavannaPredatorPreySimulation;
+
+/**
+ * The characteristics shared by every animal of a species.
+ * Each species creates one SpeciesTraits object and all of its
+ * animals point to it, so an animal only stores what is really its
+ * own: its age, food level, sex and location.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public final class SpeciesTraits
+{
+    // The species these traits belong to.
+    private final Species species;
+    // The maximum age of the species.
+    private final int maxAge;
+    // The maximum food level of the species.
+    private final int maxFoodValue;
+    // The age an animal can start breeding at.
+    private final int breedingAge;
+    // The maximum number of offspring an animal can have when breeding.
+    private final int maxLitterSize;
+    // The probability that 2 animals of the species breed when the opposite genders meet.
+    private final double breedingProbability;
+    // Time that the species falls asleep.
+    private final int sleep;
+    // How much time the species sleeps for.
+    private final int sleepAmount;
+    // When the species wakes up.
+    private final int wake;
+    // The species eaten, one bit per species id; 0 for grazers.
+    private final int diet;
+    // The hours the species is awake, one bit per hour of the day.
+    private final int awakeMask;
+
+    /**
+     * Describe a species of grazer, which eats no other species.
+     * @param species The species described.
+     * @param maxAge The species' maximum age.
+     * @param maxFoodValue The species' maximum food level.
+     * @param breedingAge The age at which an animal can start giving birth.
+     * @param maxLitterSize The maximum number of kids an animal can have when giving birth.
+     * @param breedingProbability The probability that an animal will give birth when meeting an opposite gender.
+     * @param sleep The time at when the species falls asleep.
+     * @param sleepAmount The number of hours the species sleeps.
+     */
+    public SpeciesTraits(Species species, int maxAge, int maxFoodValue, int breedingAge, int maxLitterSize, double breedingProbability, int sleep, int sleepAmount)
+    {
+        this(species, maxAge, maxFoodValue, breedingAge, maxLitterSize, breedingProbability, sleep, sleepAmount, 0);
+    }
+
+    /**
+     * Describe a species.
+     * @param species The species described.
+     * @param maxAge The species' maximum age.
+     * @param maxFoodValue The species' maximum food level.
+     * @param breedingAge The age at which an animal can start giving birth.
+     * @param maxLitterSize The maximum number of kids an animal can have when giving birth.
+     * @param breedingProbability The probability that an animal will give birth when meeting an opposite gender.
+     * @param sleep The time at when the species falls asleep.
+     * @param sleepAmount The number of hours the species sleeps.
+     * @param diet A mask of the species eaten, from Species.maskOf.
+     */
+    public SpeciesTraits(Species species, int maxAge, int maxFoodValue, int breedingAge, int maxLitterSize, double breedingProbability, int sleep, int sleepAmount, int diet)
+    {
+        this.species = species;
+        this.maxAge = maxAge;
+        this.maxFoodValue = maxFoodValue;
+        this.breedingAge = breedingAge;
+        this.maxLitterSize = maxLitterSize;
+        this.breedingProbability = breedingProbability;
+        this.sleep = sleep;
+        this.sleepAmount = sleepAmount;
+        this.wake = (sleep + sleepAmount) % 24;
+        this.diet = diet;
+        int mask = 0;
+        for(int hour = 0; hour < 24; hour++) {
+            if(!new Sleep(sleep, wake, hour).checkSleep()) {
+                mask |= 1 << hour;
+            }
+        }
+        this.awakeMask = mask;
+    }
+
+    /**
+     * Return the traits of every species, indexed by species id.
+     * Ids with no animal class are left null.
+     * @return A table of traits as long as Species.getIdCount().
+     */
+    static SpeciesTraits[] bySpeciesId()
+    {
+        SpeciesTraits[] table = new SpeciesTraits[Species.getIdCount()];
+        SpeciesTraits[] all = {Lion.TRAITS, Cheetah.TRAITS, Buffalo.TRAITS, Zebra.TRAITS, Gazelle.TRAITS, Antelope.TRAITS};
+        for(SpeciesTraits t : all) {
+            table[t.getSpecies().getId()] = t;
+        }
+        return table;
+    }
+
+    /**
+     * @return The species these traits belong to.
+     */
+    public Species getSpecies()
+    {
+        return species;
+    }
+
+    /**
+     * @return The maximum age of the species.
+     */
+    public int getMaxAge()
+    {
+        return maxAge;
+    }
+
+    /**
+     * @return The maximum food level of the species.
+     */
+    public int getMaxFoodValue()
+    {
+        return maxFoodValue;
+    }
+
+    /**
+     * @return The age at which an animal can start breeding.
+     */
+    public int getBreedingAge()
+    {
+        return breedingAge;
+    }
+
+    /**
+     * @return The maximum number of births in one litter.
+     */
+    public int getMaxLitterSize()
+    {
+        return maxLitterSize;
+    }
+
+    /**
+     * @return The probability of breeding when a mate is met.
+     */
+    public double getBreedingProbability()
+    {
+        return breedingProbability;
+    }
+
+    /**
+     * @return The hour at which the species falls asleep.
+     */
+    public int getSleep()
+    {
+        return sleep;
+    }
+
+    /**
+     * @return The number of hours the species sleeps.
+     */
+    public int getSleepAmount()
+    {
+        return sleepAmount;
+    }
+
+    /**
+     * @return The hour at which the species wakes up.
+     */
+    public int getWake()
+    {
+        return wake;
+    }
+
+    /**
+     * @return A mask of the hours the species is awake, bit h for hour h.
+     */
+    public int getAwakeMask()
+    {
+        return awakeMask;
+    }
+
+    /**
+     * Return whether the species is awake at the given hour.
+     * @param hour The hour of the day, from 0 to 23.
+     * @return true if the species is awake.
+     */
+    public boolean isAwake(int hour)
+    {
+        return (awakeMask >>> hour & 1) != 0;
+    }
+
+    /**
+     * @return A mask of the species eaten, one bit per species id.
+     */
+    public int getDiet()
+    {
+        return diet;
+    }
+}
@@ -0,0 +1,264 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.function.Consumer;
+
+/**
+ * Timings of the phases of a simulation step, for finding where the
+ * time goes and how it grows with the size of the savanna. Each phase
+ * of each step is timed with System.nanoTime and recorded in a
+ * LatencyHistogram, from which the median, 99th percentile and worst
+ * time can be read. The profiler also counts the steps, the animals
+ * that acted and the animals born, so the throughput per step can be
+ * worked out.
+ *
+ * Profiling is off until enabled and can be turned on and off while
+ * the simulation runs. A simulator checks whether it is on once per
+ * step, and when it is off does not read the clock at all. When on,
+ * it can hand a summary line every so many steps to a sink of the
+ * caller's choosing, such as a log. Nothing is printed unless a sink
+ * is set; System.out::println is the sink for printing to the console.
+ *
+ * The profiler is written by the simulation's thread. Read it from
+ * another thread only between runs, or accept figures a step stale.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class StepProfiler
+{
+    /**
+     * The phases of a step that are timed, in the order they run.
+     */
+    public enum Phase
+    {
+        // The time of day and the weather and disease events.
+        EVENTS("events"),
+        // The growth of the grass.
+        PLANTS("plants"),
+        // The animals acting, species by species.
+        ANIMALS("animals"),
+        // The newborn animals joining their species' lists.
+        NEWBORNS("newborns"),
+        // The observers, such as the view, being told about the step.
+        OBSERVERS("observers");
+
+        // The name printed in the summary.
+        private final String name;
+
+        /**
+         * Create a phase.
+         * @param name The name printed in the summary.
+         */
+        Phase(String name)
+        {
+            this.name = name;
+        }
+
+        /**
+         * @return The name printed in the summary.
+         */
+        public String getName()
+        {
+            return name;
+        }
+    }
+
+    // The number of nanoseconds in a millisecond.
+    private static final double MILLISECOND = 1_000_000.0;
+
+    // Whether steps are being timed.
+    private volatile boolean enabled;
+    // The number of steps between summary lines; zero for none.
+    private volatile int summaryInterval;
+    // Where the summary lines go; null for nowhere.
+    private volatile Consumer<String> summarySink;
+    // The times of each phase, indexed by phase ordinal.
+    private final LatencyHistogram[] phases;
+    // The times of whole steps.
+    private final LatencyHistogram steps;
+    // The animals that acted and the animals born in the steps timed.
+    private long acted;
+    private long born;
+
+    /**
+     * Create a profiler that is not yet enabled.
+     */
+    public StepProfiler()
+    {
+        phases = new LatencyHistogram[Phase.values().length];
+        for(int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+        steps = new LatencyHistogram();
+    }
+
+    /**
+     * Turn the timing of steps on or off. The figures gathered so far
+     * are kept.
+     * @param enabled Whether to time the steps from the next one on.
+     */
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return Whether steps are being timed.
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Set where summary lines go. The sink is called on the
+     * simulation's thread, so should be quick.
+     * @param summarySink Takes each summary line, or null to drop them.
+     */
+    public void setSummarySink(Consumer<String> summarySink)
+    {
+        this.summarySink = summarySink;
+    }
+
+    /**
+     * Produce a summary line every so many steps timed, for the sink.
+     * @param summaryInterval The number of steps between lines, or zero for none.
+     */
+    public void setSummaryInterval(int summaryInterval)
+    {
+        if(summaryInterval < 0) {
+            throw new IllegalArgumentException("summaryInterval must not be negative: " + summaryInterval);
+        }
+        this.summaryInterval = summaryInterval;
+    }
+
+    /**
+     * Record the time a phase took, up to now.
+     * @param phase The phase just finished.
+     * @param since The time the phase started, from System.nanoTime.
+     * @return The time now, at which the next phase starts.
+     */
+    public long lap(Phase phase, long since)
+    {
+        long now = System.nanoTime();
+        phases[phase.ordinal()].record(now - since);
+        return now;
+    }
+
+    /**
+     * Record a step that has finished, and hand a summary line to
+     * the sink if one is due.
+     * @param step The number of the step.
+     * @param since The time the step started, from System.nanoTime.
+     * @param actedInStep The number of animals that acted in the step.
+     * @param bornInStep The number of animals born in the step.
+     */
+    public void stepFinished(int step, long since, int actedInStep, int bornInStep)
+    {
+        steps.record(System.nanoTime() - since);
+        acted += actedInStep;
+        born += bornInStep;
+        int interval = summaryInterval;
+        Consumer<String> sink = summarySink;
+        if(sink != null && interval > 0 && steps.getCount() % interval == 0) {
+            sink.accept("Step " + step + ": " + getSummary());
+        }
+    }
+
+    /**
+     * Return the times of one phase.
+     * @param phase The phase.
+     * @return The histogram of its times, in nanoseconds.
+     */
+    public LatencyHistogram getHistogram(Phase phase)
+    {
+        return phases[phase.ordinal()];
+    }
+
+    /**
+     * @return The histogram of the times of whole steps, in nanoseconds.
+     */
+    public LatencyHistogram getStepHistogram()
+    {
+        return steps;
+    }
+
+    /**
+     * @return The number of steps timed.
+     */
+    public long getStepCount()
+    {
+        return steps.getCount();
+    }
+
+    /**
+     * @return The mean number of animals that acted per step timed.
+     */
+    public double getActedPerStep()
+    {
+        return steps.getCount() == 0 ? 0 : (double) acted / steps.getCount();
+    }
+
+    /**
+     * @return The mean number of animals born per step timed.
+     */
+    public double getBornPerStep()
+    {
+        return steps.getCount() == 0 ? 0 : (double) born / steps.getCount();
+    }
+
+    /**
+     * @return The steps timed per second of time spent in them.
+     */
+    public double getStepsPerSecond()
+    {
+        return steps.getTotal() == 0 ? 0 : steps.getCount() * 1e9 / steps.getTotal();
+    }
+
+    /**
+     * Return a line summing up the figures so far: the steps per
+     * second and the animals per step, then the median, 99th
+     * percentile and worst time of the step and of each phase, in
+     * milliseconds.
+     * @return The summary.
+     */
+    public String getSummary()
+    {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(String.format("%.0f steps/s, %.0f acted/step, %.1f born/step; step %s",
+                                    getStepsPerSecond(), getActedPerStep(), getBornPerStep(), describe(steps)));
+        for(Phase phase : Phase.values()) {
+            buffer.append("; ");
+            buffer.append(phase.getName());
+            buffer.append(' ');
+            buffer.append(describe(getHistogram(phase)));
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Describe the median, 99th percentile and worst of a histogram.
+     * @param histogram The histogram.
+     * @return The three times, in milliseconds.
+     */
+    private static String describe(LatencyHistogram histogram)
+    {
+        return String.format("p50 %.3f p99 %.3f max %.3f ms",
+                             histogram.getPercentile(0.5) / MILLISECOND,
+                             histogram.getPercentile(0.99) / MILLISECOND,
+                             histogram.getMax() / MILLISECOND);
+    }
+
+    /**
+     * Forget every figure gathered so far.
+     */
+    public void reset()
+    {
+        for(LatencyHistogram histogram : phases) {
+            histogram.reset();
+        }
+        steps.reset();
+        acted = 0;
+        born = 0;
+    }
+}
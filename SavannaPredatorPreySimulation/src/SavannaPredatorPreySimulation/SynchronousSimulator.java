@@ -0,0 +1,608 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A predator-prey simulator in which every animal acts at the same
+ * moment. The animals' state is double-buffered: during a step every
+ * animal reads the current grid, which nobody changes, and records
+ * what it intends to do - die, move, hunt, graze, give birth. A
+ * resolution pass then settles the clashes and writes the results
+ * into the next grid, and the two grids swap.
+ *
+ * Because no animal sees another's move, the order in which the
+ * intents are worked out does not matter, and that part of the step
+ * runs on several threads in bands of rows. Each animal's random
+ * numbers come from a CounterRandom stream named by the seed, the
+ * step, its cell and what the numbers are for, so a run is the same
+ * for any number of threads.
+ *
+ * Clashes are settled as follows. Predators hunting the same animal
+ * are ranked by a number drawn from the seed, the step and the
+ * hunter's cell; the lowest wins and the others stay where they are. An animal
+ * that is eaten dies whatever it intended. Movers, grazers and
+ * newborns wanting the same free cell are ranked the same way; the
+ * winner takes the cell, losing movers and grazers stay put and
+ * losing newborns are not born.
+ *
+ * The simulator runs on a fork-join pool that is either its own, which
+ * close() shuts down, or one handed to it, which many simulators can
+ * share and which the caller shuts down.
+ *
+ * Each newborn is numbered after the cells, by its parent's cell and
+ * its place in the litter, and those numbers are ints, so a savanna
+ * holds at most MAX_CELLS cells, fewer than other simulators allow.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class SynchronousSimulator extends GridSimulator implements AutoCloseable
+{
+    // The most cells a savanna may have, so that every cell and every
+    // newborn it could hold has an int number.
+    public static final int MAX_CELLS = Integer.MAX_VALUE / (Neighbourhood.MAX_NEIGHBOURS + 1);
+
+    // The intents an animal can record.
+    private static final byte STAY = 0;
+    private static final byte DIE = 1;
+    private static final byte MOVE = 2;
+    private static final byte HUNT = 3;
+    private static final byte GRAZE = 4;
+    // The number of rows in each band worked on by one task.
+    private static final int BAND_ROWS = 16;
+    // No cell; also no claim on a cell.
+    private static final int NONE = -1;
+
+    // The current grid is the codes, with the birth step and
+    // starvation step of the animal in each cell.
+    private int[] bornAt;
+    private int[] starveAt;
+    // The next grid, written by the resolution pass.
+    private short[] nextCodes;
+    private int[] nextBornAt;
+    private int[] nextStarveAt;
+    // The intent of the animal in each cell and the cell it is aimed at.
+    private final byte[] intent;
+    private final int[] target;
+    // The birth step of the animal in each cell after any disease.
+    private final int[] shiftedBornAt;
+    // The newborns each animal intends: their number, cells and sexes.
+    private final byte[] births;
+    private final int[] birthCells;
+    private final byte[] birthSexes;
+    // The best claim on each cell so far, and its claimant.
+    private final long[] claimKey;
+    private final int[] claimFrom;
+    // The threads that work out the intents.
+    private final ForkJoinPool pool;
+    // Whether the pool was made by this simulator, which shuts it down.
+    private final boolean ownsPool;
+    // The seed the animals' generators are keyed on.
+    private long seed;
+
+    /**
+     * Construct a simulation savanna with default size, using a
+     * thread for each processor.
+     */
+    public SynchronousSimulator()
+    {
+        this(Simulator.DEFAULT_DEPTH, Simulator.DEFAULT_WIDTH);
+    }
+
+    /**
+     * Create a simulation savanna with the given size, using a
+     * thread for each processor.
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     */
+    public SynchronousSimulator(int depth, int width)
+    {
+        this(depth, width, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a simulation savanna with the given size.
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     * @param threads The number of threads to run on. Must be greater than zero.
+     */
+    public SynchronousSimulator(int depth, int width, int threads)
+    {
+        this(depth, width, new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors()), true, Randomizer.getRandom());
+    }
+
+    /**
+     * Create a simulation savanna with the given size, using a
+     * thread for each processor, whose savanna, animals and events
+     * all draw from the given generator.
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     * @param rand The random generator for this simulation alone.
+     */
+    public SynchronousSimulator(int depth, int width, Random rand)
+    {
+        this(depth, width, new ForkJoinPool(Runtime.getRuntime().availableProcessors()), true, rand);
+    }
+
+    /**
+     * Create a simulation savanna with the given size that runs on a
+     * pool shared with others. The pool is not shut down by close().
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     * @param pool The pool to run on.
+     */
+    public SynchronousSimulator(int depth, int width, ForkJoinPool pool)
+    {
+        this(depth, width, pool, false, Randomizer.getRandom());
+    }
+
+    /**
+     * Create a simulation savanna with the given size that runs on a
+     * pool shared with others, such as one run of an ensemble, and
+     * draws from the given generator. The pool is not shut down by
+     * close().
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     * @param pool The pool to run on.
+     * @param rand The random generator for this simulation alone.
+     */
+    public SynchronousSimulator(int depth, int width, ForkJoinPool pool, Random rand)
+    {
+        this(depth, width, pool, false, rand);
+    }
+
+    /**
+     * Create a simulation savanna with the given size and pool.
+     * @param depth Depth of the savanna. Must be greater than zero.
+     * @param width Width of the savanna. Must be greater than zero.
+     * @param pool The pool to run on.
+     * @param ownsPool Whether close() shuts the pool down.
+     * @param rand The random generator for the simulation.
+     * @throws IllegalArgumentException If the savanna has more than MAX_CELLS cells.
+     */
+    private SynchronousSimulator(int depth, int width, ForkJoinPool pool, boolean ownsPool, Random rand)
+    {
+        // The size is checked before the superclass allocates anything.
+        super(checkSize(depth, width), width, rand);
+        int cells = codes.length;
+        bornAt = new int[cells];
+        starveAt = new int[cells];
+        nextCodes = new short[cells];
+        nextBornAt = new int[cells];
+        nextStarveAt = new int[cells];
+        intent = new byte[cells];
+        target = new int[cells];
+        shiftedBornAt = new int[cells];
+        births = new byte[cells];
+        birthCells = new int[cells * Neighbourhood.MAX_NEIGHBOURS];
+        birthSexes = new byte[cells];
+        claimKey = new long[cells];
+        claimFrom = new int[cells];
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+
+        // Setup a valid starting point.
+        reset();
+    }
+
+    /**
+     * Check that a savanna of the given dimensions has no more than
+     * MAX_CELLS cells.
+     * @param depth Depth of the savanna.
+     * @param width Width of the savanna.
+     * @return The depth, unchanged.
+     * @throws IllegalArgumentException If the savanna has more than MAX_CELLS cells.
+     */
+    private static int checkSize(int depth, int width)
+    {
+        if((long) depth * width > MAX_CELLS) {
+            throw new IllegalArgumentException("A savanna of " + depth + " by " + width + " has more than " + MAX_CELLS + " cells.");
+        }
+        return depth;
+    }
+
+    /**
+     * Run the simulation from its current state for a single step:
+     * update the events and grass, work out every animal's intent in
+     * parallel, settle the clashes and swap the grids.
+     */
+    public void simulateOneStep()
+    {
+        beginStep();
+        wakeSpecies();
+
+        pool.invoke(new IntentBand(0, depth));
+        resolveHunts();
+        resolveClaims();
+        buildNextGrid();
+        swap();
+    }
+
+    /**
+     * Decide which hunter gets each hunted animal. The losers stay
+     * where they are; the hunted animals die.
+     */
+    private void resolveHunts()
+    {
+        Arrays.fill(claimFrom, NONE);
+        for(int cell = 0; cell < codes.length; cell++) {
+            if(intent[cell] == HUNT) {
+                claim(target[cell], cell, rank(cell));
+            }
+        }
+        for(int cell = 0; cell < codes.length; cell++) {
+            if(intent[cell] == HUNT && claimFrom[target[cell]] != cell) {
+                intent[cell] = STAY;
+            }
+        }
+        for(int cell = 0; cell < codes.length; cell++) {
+            if(claimFrom[cell] != NONE) {
+                // The prey dies, whatever it meant to do.
+                intent[cell] = DIE;
+            }
+        }
+    }
+
+    /**
+     * Decide which mover, grazer or newborn gets each free cell
+     * wanted by more than one. Losing movers and grazers stay where
+     * they are and losing newborns are not born. Winning grazers eat
+     * the grass of their cell.
+     */
+    private void resolveClaims()
+    {
+        Arrays.fill(claimFrom, NONE);
+        for(int cell = 0; cell < codes.length; cell++) {
+            byte what = intent[cell];
+            if(what == MOVE || what == GRAZE) {
+                claim(target[cell], cell, rank(cell));
+            }
+            if(what != DIE) {
+                for(int b = 0; b < births[cell]; b++) {
+                    int young = newbornOf(cell, b);
+                    claim(birthCells[cell * Neighbourhood.MAX_NEIGHBOURS + b], young, rank(young));
+                }
+            }
+        }
+        for(int cell = 0; cell < codes.length; cell++) {
+            byte what = intent[cell];
+            if((what == MOVE || what == GRAZE) && claimFrom[target[cell]] != cell) {
+                intent[cell] = STAY;
+            } else if(what == GRAZE) {
+                savannaPlant.clear(target[cell]);
+            }
+        }
+    }
+
+    /**
+     * Return the number a newborn's claim is made under, which is
+     * different from every cell number and every other newborn's.
+     * @param cell The cell of the parent.
+     * @param b The number of the newborn in its litter.
+     * @return The claimant number of the newborn.
+     */
+    private int newbornOf(int cell, int b)
+    {
+        return codes.length + cell * Neighbourhood.MAX_NEIGHBOURS + b;
+    }
+
+    /**
+     * Return the rank of a claimant this step, a pure function of the
+     * seed, the step and the claimant.
+     * @param from The claimant: the cell of an animal, or a newborn's number.
+     * @return The rank of the claimant's claims; lower is better.
+     */
+    private long rank(int from)
+    {
+        return CounterRandom.draw(seed, step, from, CounterRandom.RANK, 0);
+    }
+
+    /**
+     * Record a claim on a cell if it beats the best claim so far.
+     * Ties, which are very unlikely, go to the lower claimant.
+     * @param cell The cell claimed.
+     * @param from The claimant: the cell of an animal, or a newborn's number.
+     * @param key The rank of the claim; lower is better.
+     */
+    private void claim(int cell, int from, long key)
+    {
+        if(claimFrom[cell] == NONE || key < claimKey[cell] || key == claimKey[cell] && from < claimFrom[cell]) {
+            claimKey[cell] = key;
+            claimFrom[cell] = from;
+        }
+    }
+
+    /**
+     * Write every surviving animal and every newborn that won its
+     * cell into the next grid, and recount the population.
+     */
+    private void buildNextGrid()
+    {
+        Arrays.fill(nextCodes, FlatGrid.EMPTY);
+        Arrays.fill(population, 0);
+        for(int cell = 0; cell < codes.length; cell++) {
+            short code = codes[cell];
+            if(code == FlatGrid.EMPTY) {
+                continue;
+            }
+            int id = code >> 1;
+            byte what = intent[cell];
+            if(what != DIE) {
+                int dest = what == STAY ? cell : target[cell];
+                nextCodes[dest] = code;
+                nextBornAt[dest] = shiftedBornAt[cell];
+                nextStarveAt[dest] = what == HUNT || what == GRAZE ? clocks[id] + traits[id].getMaxFoodValue() : starveAt[cell];
+                population[id]++;
+                for(int b = 0; b < births[cell]; b++) {
+                    int young = birthCells[cell * Neighbourhood.MAX_NEIGHBOURS + b];
+                    if(claimFrom[young] == newbornOf(cell, b)) {
+                        boolean female = (birthSexes[cell] >> b & 1) != 0;
+                        nextCodes[young] = Species.byId(id).codeOf(female);
+                        nextBornAt[young] = clocks[id];
+                        nextStarveAt[young] = clocks[id] + traits[id].getMaxFoodValue();
+                        population[id]++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Make the next grid the current one.
+     */
+    private void swap()
+    {
+        short[] swapCodes = codes;
+        codes = nextCodes;
+        nextCodes = swapCodes;
+        int[] swapBornAt = bornAt;
+        bornAt = nextBornAt;
+        nextBornAt = swapBornAt;
+        int[] swapStarveAt = starveAt;
+        starveAt = nextStarveAt;
+        nextStarveAt = swapStarveAt;
+    }
+
+    /**
+     * Shut down the simulator's own pool, letting its threads end.
+     * A shared pool is left running. The simulator cannot take any
+     * more steps afterwards.
+     */
+    public void close()
+    {
+        if(ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Reset the simulation to a starting position, with a new seed
+     * for the animals' generators.
+     */
+    public void reset()
+    {
+        super.reset();
+        seed = rand.nextLong();
+    }
+
+    /**
+     * Nothing to forget: the rest of an animal's state is only read
+     * where the code of its cell says there is an animal.
+     */
+    protected void clearAnimals()
+    {
+    }
+
+    /**
+     * Place an animal of the starting population in its cell, and
+     * count it.
+     * @param id The id of the animal's species.
+     * @param cell The cell the animal occupies.
+     * @param isFemale Whether the animal is female.
+     * @param starveAt The awake step at which the animal starves.
+     */
+    protected void addStartingAnimal(int id, int cell, boolean isFemale, int starveAt)
+    {
+        codes[cell] = Species.byId(id).codeOf(isFemale);
+        bornAt[cell] = 0;
+        this.starveAt[cell] = starveAt;
+        population[id]++;
+    }
+
+    /**
+     * A fork-join task working out the intents of the animals in a
+     * band of rows, split in half until the band is small enough.
+     * Each task only writes the intent entries of its own cells.
+     */
+    private class IntentBand extends RecursiveAction
+    {
+        // The version of the serialized form, which RecursiveAction requires.
+        private static final long serialVersionUID = 1L;
+
+        // The rows covered, from first up to but not including last.
+        private final int firstRow, lastRow;
+        // Scratch space for the indices of neighbouring cells.
+        private int[] adjacent;
+        // A generator pointed at each of an animal's streams in turn.
+        private CounterRandom cellRand;
+
+        /**
+         * Create a task for a band of rows.
+         * @param firstRow The first row covered.
+         * @param lastRow One past the last row covered.
+         */
+        IntentBand(int firstRow, int lastRow)
+        {
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+        }
+
+        /**
+         * Work out the intents, splitting the band between threads.
+         */
+        protected void compute()
+        {
+            if(lastRow - firstRow > BAND_ROWS) {
+                int middle = (firstRow + lastRow) >>> 1;
+                invokeAll(new IntentBand(firstRow, middle), new IntentBand(middle, lastRow));
+                return;
+            }
+            adjacent = new int[Neighbourhood.MAX_NEIGHBOURS];
+            cellRand = new CounterRandom(seed);
+            for(int cell = firstRow * width; cell < lastRow * width; cell++) {
+                births[cell] = 0;
+                intent[cell] = STAY;
+                int code = codes[cell];
+                if(code != FlatGrid.EMPTY) {
+                    shiftedBornAt[cell] = bornAt[cell];
+                    if(awake[code >> 1]) {
+                        decide(cell);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Work out what the animal in a cell intends to do this step,
+         * following the rules of Animal.act against the current grid.
+         * @param cell The cell of the animal.
+         */
+        private void decide(int cell)
+        {
+            int id = codes[cell] >> 1;
+            SpeciesTraits t = traits[id];
+            int now = clocks[id];
+            if(now >= starveAt[cell]) {
+                intent[cell] = DIE;
+                return;
+            }
+            cellRand.select(step, cell, CounterRandom.DISEASE);
+            if(isDisease && cellRand.nextDouble() <= infectionRate) {
+                shiftedBornAt[cell] -= lethality - 1;
+            }
+            if(now - shiftedBornAt[cell] > t.getMaxAge()) {
+                intent[cell] = DIE;
+                return;
+            }
+
+            cellRand.select(step, cell, CounterRandom.MEET);
+            if(meet(cell)) {
+                cellRand.select(step, cell, CounterRandom.BIRTH);
+                planBirths(cell, now, t);
+            }
+            // Move towards a source of food if found.
+            cellRand.select(step, cell, CounterRandom.FOOD);
+            int food = t.getDiet() != 0 ? findPrey(cell, t.getDiet()) : findGrass(cell);
+            if(food != NONE) {
+                intent[cell] = t.getDiet() != 0 ? HUNT : GRAZE;
+                target[cell] = food;
+                return;
+            }
+            cellRand.select(step, cell, CounterRandom.MOVE);
+            if(freeAdjacentIndices(cell) > 0) {
+                intent[cell] = MOVE;
+                target[cell] = adjacent[0];
+            } else {
+                // Overcrowding.
+                intent[cell] = DIE;
+            }
+        }
+
+        /**
+         * Return whether an animal of the same species and opposite
+         * sex is in a cell next to the animal.
+         * @param cell The cell of the animal.
+         * @return true if a mate was found.
+         */
+        private boolean meet(int cell)
+        {
+            int mate = codes[cell] ^ 1;
+            int count = neighbourhood.shuffledNeighbours(cell / width, cell % width, adjacent, cellRand);
+            for(int i = 0; i < count; i++) {
+                if(codes[adjacent[i]] == mate) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Look for prey next to a predator.
+         * @param cell The cell of the predator.
+         * @param diet The species the predator eats.
+         * @return The cell of the first prey found, or NONE.
+         */
+        private int findPrey(int cell, int diet)
+        {
+            int count = neighbourhood.shuffledNeighbours(cell / width, cell % width, adjacent, cellRand);
+            for(int i = 0; i < count; i++) {
+                if(Species.inDiet(diet, codes[adjacent[i]])) {
+                    return adjacent[i];
+                }
+            }
+            return NONE;
+        }
+
+        /**
+         * Look for live grass in a free cell next to a grazer.
+         * @param cell The cell of the grazer.
+         * @return The cell of the first grass found, or NONE.
+         */
+        private int findGrass(int cell)
+        {
+            int count = neighbourhood.shuffledNeighbours(cell / width, cell % width, adjacent, cellRand);
+            for(int i = 0; i < count; i++) {
+                int where = adjacent[i];
+                if(codes[where] == FlatGrid.EMPTY && savannaPlant.isAlive(where)) {
+                    return where;
+                }
+            }
+            return NONE;
+        }
+
+        /**
+         * Record the newborns the animal intends, in free cells around it.
+         * @param cell The cell of the parent.
+         * @param now The species' awake clock.
+         * @param t The traits of the parent's species.
+         */
+        private void planBirths(int cell, int now, SpeciesTraits t)
+        {
+            int free = freeAdjacentIndices(cell);
+            int count = 0;
+            if(now - shiftedBornAt[cell] >= t.getBreedingAge() && cellRand.nextDouble() <= t.getBreedingProbability()) {
+                count = Math.min(free, cellRand.nextInt(t.getMaxLitterSize()) + 1);
+            }
+            int sexes = 0;
+            for(int b = 0; b < count; b++) {
+                birthCells[cell * Neighbourhood.MAX_NEIGHBOURS + b] = adjacent[b];
+                if(cellRand.nextInt(2) == 0) {
+                    sexes |= 1 << b;
+                }
+            }
+            births[cell] = (byte) count;
+            birthSexes[cell] = (byte) sexes;
+        }
+
+        /**
+         * Write the free cells next to a cell into the scratch buffer,
+         * in a random order.
+         * @param cell The cell whose neighbours are searched.
+         * @return The number of free cells found.
+         */
+        private int freeAdjacentIndices(int cell)
+        {
+            int count = neighbourhood.shuffledNeighbours(cell / width, cell % width, adjacent, cellRand);
+            int free = 0;
+            for(int i = 0; i < count; i++) {
+                if(codes[adjacent[i]] == FlatGrid.EMPTY) {
+                    adjacent[free++] = adjacent[i];
+                }
+            }
+            return free;
+        }
+    }
+}
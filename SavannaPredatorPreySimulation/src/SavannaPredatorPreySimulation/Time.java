@@ -14,7 +14,7 @@ public class Time
     // The number of steps an hour is.
     private static final int STEP_PER_HOUR = 2;
     // The number of steps a day is.
-    private static final int STEP_PER_DAY = STEP_PER_HOUR * 24;
+    static final int STEP_PER_DAY = STEP_PER_HOUR * 24;
 
     /**
      * Creates an instance of Time.
@@ -31,10 +31,20 @@ public class Time
      */
     public void calculateTime(int steps)
     {
-        hour = (steps / STEP_PER_HOUR) % 24;
+        hour = hourAt(steps);
         day = (steps / STEP_PER_DAY) + 1;
     }
     
+    /**
+     * Returns the hour at a given step.
+     * @param steps The step at which the simulation is at.
+     * @return The hour of the day, from 0 to 23.
+     */
+    public static int hourAt(int steps)
+    {
+        return (steps / STEP_PER_HOUR) % 24;
+    }
+    
     /**
      * Returns the hour.
      * @return The hour.
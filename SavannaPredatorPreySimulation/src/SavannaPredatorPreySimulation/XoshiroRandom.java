@@ -0,0 +1,161 @@
+package SavannaPredatorPreySimulation;
+
+import java.util.Random;
+
+/**
+ * A fast random generator based on xoshiro256**, usable wherever a
+ * Random is expected. Random updates its seed with an atomic
+ * compare-and-set on every draw, which a single-threaded step does
+ * not need; this generator keeps its state in plain fields and is
+ * not safe to share between threads.
+ *
+ * Numbers are made a block at a time into a buffer, in a tight loop
+ * that keeps the state in registers, and each draw then reads the
+ * next entry. A double or a bounded int takes one 64-bit number, so
+ * the same seed always gives the same sequence of draws.
+ *
+ * @author Dennis Kolley
+ * @version 2021.03.01
+ */
+public class XoshiroRandom extends Random
+{
+    // The version of the serialized form, which Random requires.
+    private static final long serialVersionUID = 1L;
+    // The number of 64-bit numbers made at a time.
+    private static final int BLOCK_SIZE = 256;
+    // The amount the seed moves on by for each word of state.
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // The four words of state. They are set by setSeed(), which
+    // Random's constructor calls before field initialisers run.
+    private long s0, s1, s2, s3;
+    // The numbers made but not yet drawn.
+    private long[] block;
+    // The position of the next number to draw in the block.
+    private int next;
+
+    /**
+     * Create a generator with a seed taken from the clock.
+     */
+    public XoshiroRandom()
+    {
+        super();
+    }
+
+    /**
+     * Create a generator with the given seed.
+     * @param seed The seed.
+     */
+    public XoshiroRandom(long seed)
+    {
+        super(seed);
+    }
+
+    /**
+     * Set the seed of the generator, spreading it over the four
+     * words of state with SplitMix64, and drop any numbers already
+     * made.
+     * @param seed The seed.
+     */
+    public void setSeed(long seed)
+    {
+        super.setSeed(seed);
+        s0 = SplitMixRandom.mix(seed += GOLDEN_GAMMA);
+        s1 = SplitMixRandom.mix(seed += GOLDEN_GAMMA);
+        s2 = SplitMixRandom.mix(seed += GOLDEN_GAMMA);
+        s3 = SplitMixRandom.mix(seed + GOLDEN_GAMMA);
+        if(block == null) {
+            block = new long[BLOCK_SIZE];
+        }
+        next = BLOCK_SIZE;
+    }
+
+    /**
+     * Fill the block with the next numbers of the sequence.
+     */
+    private void refill()
+    {
+        fill(block, 0, BLOCK_SIZE);
+        next = 0;
+    }
+
+    /**
+     * Run the xoshiro256** generator, writing its output into a
+     * buffer.
+     * @param out The buffer to fill.
+     * @param from The first position to fill.
+     * @param to One past the last position to fill.
+     */
+    private void fill(long[] out, int from, int to)
+    {
+        long a = s0, b = s1, c = s2, d = s3;
+        for(int i = from; i < to; i++) {
+            out[i] = Long.rotateLeft(b * 5, 7) * 9;
+            long t = b << 17;
+            c ^= a;
+            d ^= b;
+            b ^= c;
+            a ^= d;
+            c ^= t;
+            d = Long.rotateLeft(d, 45);
+        }
+        s0 = a;
+        s1 = b;
+        s2 = c;
+        s3 = d;
+    }
+
+    /**
+     * @return The next 64 random bits.
+     */
+    public long nextLong()
+    {
+        if(next == BLOCK_SIZE) {
+            refill();
+        }
+        return block[next++];
+    }
+
+    /**
+     * @return A double evenly spread over [0, 1), from one 64-bit number.
+     */
+    public double nextDouble()
+    {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Return an int evenly spread over [0, bound), using Lemire's
+     * multiply-and-shift rather than a division.
+     * @param bound The upper bound, exclusive. Must be positive.
+     * @return The random int.
+     */
+    public int nextInt(int bound)
+    {
+        if(bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        long product = (nextLong() >>> 32) * bound;
+        long low = product & 0xFFFFFFFFL;
+        if(low < bound) {
+            // Reject the few values that would bias the result.
+            long threshold = (0x100000000L - bound) % bound;
+            while(low < threshold) {
+                product = (nextLong() >>> 32) * bound;
+                low = product & 0xFFFFFFFFL;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    /**
+     * Generate the next random bits; Random's other methods draw
+     * their numbers from here.
+     * @param bits The number of random bits wanted.
+     * @return An int whose low bits are random.
+     */
+    protected int next(int bits)
+    {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+}
@@ -19,12 +19,14 @@ public class Zebra extends Prey
     private static final double BREEDING_PROBABILITY = 0.2;
     // The maximum number of births.
     private static final int MAX_LITTER_SIZE = 3;
-    // Name of the animal in a String.
-    private static final String NAME = "Zebra";
+    // The species of the animal.
+    private static final Species SPECIES = Species.ZEBRA;
     // When the animal falls asleep.
     private static final int SLEEP = 14;
     // How much the animal sleeps.
     private static final int SLEEP_AMOUNT = 7;
+    // The characteristics above, shared by every zebra.
+    static final SpeciesTraits TRAITS = new SpeciesTraits(SPECIES, MAX_AGE, MAX_FOOD_VALUE, BREEDING_AGE, MAX_LITTER_SIZE, BREEDING_PROBABILITY, SLEEP, SLEEP_AMOUNT);
     
     /**
      * Create a new zebra. A zebra may be created with age
@@ -36,7 +38,7 @@ public class Zebra extends Prey
      */
     public Zebra(boolean randomAge, SavannaAnimal savanna, Location location, SavannaPlant savannaPlant)
     {
-        super(randomAge, savanna, location, MAX_AGE, MAX_FOOD_VALUE, BREEDING_AGE, MAX_LITTER_SIZE, BREEDING_PROBABILITY, NAME, SLEEP, SLEEP_AMOUNT, savannaPlant);
+        super(randomAge, savanna, location, TRAITS, savannaPlant);
     }
     
     /**
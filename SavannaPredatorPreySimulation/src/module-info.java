@@ -1,3 +1,4 @@
 module SavannaPredatorPreySimulation {
-	requires java.desktop;
+	// Only the view needs java.desktop; the simulation runs without it.
+	requires static java.desktop;
 }
\ No newline at end of file